@@ -0,0 +1,222 @@
+package DAO;
+
+import helper.IntervalTree;
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AppointmentIndex class keeps an interval tree of the appointments of each customer and of each contact, so
+ * conflicts and busy times can be found in memory in O(log n + k) instead of scanning a whole history.
+ * A customer's or contact's tree is built from the database the first time it is needed and is then kept in sync
+ * through the DBAppointments change listeners, so it reflects every insert, update and delete made by this application.
+ * It does not see what other users save, so it only serves the hints shown while a form is filled in, such as free
+ * slots and free times; a booking is checked against the database with DBAppointments.hasOverlap when it is saved.
+ *
+ * Start and end times are indexed as epoch seconds, in the same time frame in which they are stored.
+ * The later occurrences of recurring appointments are not in the trees; they are worked out for each check
+ * by RecurringAppointments and included in the results.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class AppointmentIndex {
+
+    private static final Map<Integer, IntervalTree<Appointment>> treesByCustomer = new HashMap<>();
+    private static final Map<Integer, IntervalTree<Appointment>> treesByContact = new HashMap<>();
+    private static final Map<Integer, IndexedInterval> indexedById = new HashMap<>();
+
+    static {
+        DBAppointments.addChangeListener(new DBAppointments.ChangeListener() {
+            @Override
+            public void inserted(Appointment appointment) {
+                add(appointment);
+            }
+
+            @Override
+            public void updated(Appointment appointment) {
+                synchronized (AppointmentIndex.class) {
+                    remove(appointment.getId());
+                    add(appointment);
+                }
+            }
+
+            @Override
+            public void deleted(Appointment appointment) {
+                remove(appointment.getId());
+            }
+
+            @Override
+            public void deletedForCustomer(int customerId) {
+                synchronized (AppointmentIndex.class) {
+                    treesByCustomer.remove(customerId);
+                    indexedById.entrySet().removeIf(entry -> {
+                        IndexedInterval interval = entry.getValue();
+                        if (interval.customerId != customerId) {
+                            return false;
+                        }
+                        IntervalTree<Appointment> contactTree = treesByContact.get(interval.contactId);
+                        if (interval.inContactTree && contactTree != null) {
+                            contactTree.remove(interval.start, entry.getKey());
+                        }
+                        return true;
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Finds the appointments of a customer that overlap a time interval.
+     *
+     * @param customerId           The ID of the customer.
+     * @param start                The start of the interval.
+     * @param end                  The end of the interval.
+     * @param excludeAppointmentId The ID of an appointment to leave out, or 0 to leave out none.
+     * @return The overlapping appointments and occurrences ordered by start.
+     * @throws SQLException If the customer's appointments had to be loaded and a database error occurred.
+     */
+    public static synchronized List<Appointment> findOverlapping(int customerId, LocalDateTime start, LocalDateTime end,
+                                                                 int excludeAppointmentId) throws SQLException {
+        return RecurringAppointments.merge(customerTree(customerId).query(toSeconds(start), toSeconds(end), excludeAppointmentId),
+                RecurringAppointments.occurrences(start, end, customerId, 0, excludeAppointmentId));
+    }
+
+    /**
+     * Finds the appointments of a contact that overlap a time interval.
+     *
+     * @param contactId            The ID of the contact.
+     * @param start                The start of the interval.
+     * @param end                  The end of the interval.
+     * @param excludeAppointmentId The ID of an appointment to leave out, or 0 to leave out none.
+     * @return The overlapping appointments and occurrences ordered by start.
+     * @throws SQLException If the contact's appointments had to be loaded and a database error occurred.
+     */
+    public static synchronized List<Appointment> findContactOverlapping(int contactId, LocalDateTime start, LocalDateTime end,
+                                                                        int excludeAppointmentId) throws SQLException {
+        return RecurringAppointments.merge(contactTree(contactId).query(toSeconds(start), toSeconds(end), excludeAppointmentId),
+                RecurringAppointments.occurrences(start, end, 0, contactId, excludeAppointmentId));
+    }
+
+    /**
+     * Discards every tree, so the appointments are read again on the next check.
+     */
+    public static synchronized void clear() {
+        treesByCustomer.clear();
+        treesByContact.clear();
+        indexedById.clear();
+    }
+
+    private static IntervalTree<Appointment> customerTree(int customerId) throws SQLException {
+        IntervalTree<Appointment> tree = treesByCustomer.get(customerId);
+        if (tree == null) {
+            tree = new IntervalTree<>();
+            treesByCustomer.put(customerId, tree);
+            try {
+                load(DBAppointments.selectByCustomerId(customerId), true);
+            } catch (SQLException e) {
+                treesByCustomer.remove(customerId);
+                throw e;
+            }
+        }
+        return tree;
+    }
+
+    private static IntervalTree<Appointment> contactTree(int contactId) throws SQLException {
+        IntervalTree<Appointment> tree = treesByContact.get(contactId);
+        if (tree == null) {
+            tree = new IntervalTree<>();
+            treesByContact.put(contactId, tree);
+            try {
+                load(DBAppointments.select(contactId), false);
+            } catch (SQLException e) {
+                treesByContact.remove(contactId);
+                throw e;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Adds the appointments just read for one customer or contact to that tree. An appointment already indexed
+     * in the other kind of tree keeps its entry, so it is never added to the same tree twice.
+     */
+    private static void load(List<Appointment> appointments, boolean byCustomer) {
+        for (Appointment appointment : appointments) {
+            if (appointment.getStart() == null || appointment.getEnd() == null) {
+                continue;
+            }
+            IndexedInterval interval = indexedById.computeIfAbsent(appointment.getId(), id -> new IndexedInterval(appointment));
+            if (byCustomer && !interval.inCustomerTree) {
+                treesByCustomer.get(interval.customerId).insert(interval.start, interval.end, appointment.getId(), appointment);
+                interval.inCustomerTree = true;
+            } else if (!byCustomer && !interval.inContactTree) {
+                treesByContact.get(interval.contactId).insert(interval.start, interval.end, appointment.getId(), appointment);
+                interval.inContactTree = true;
+            }
+        }
+    }
+
+    private static synchronized void add(Appointment appointment) {
+        if (appointment.getStart() == null || appointment.getEnd() == null) {
+            return;
+        }
+        IndexedInterval interval = new IndexedInterval(appointment);
+        IntervalTree<Appointment> customerTree = treesByCustomer.get(interval.customerId);
+        if (customerTree != null) {
+            customerTree.insert(interval.start, interval.end, appointment.getId(), appointment);
+            interval.inCustomerTree = true;
+        }
+        IntervalTree<Appointment> contactTree = treesByContact.get(interval.contactId);
+        if (contactTree != null) {
+            contactTree.insert(interval.start, interval.end, appointment.getId(), appointment);
+            interval.inContactTree = true;
+        }
+        if (interval.inCustomerTree || interval.inContactTree) {
+            indexedById.put(appointment.getId(), interval);
+        }
+    }
+
+    private static synchronized void remove(int appointmentId) {
+        IndexedInterval interval = indexedById.remove(appointmentId);
+        if (interval == null) {
+            return;
+        }
+        IntervalTree<Appointment> customerTree = treesByCustomer.get(interval.customerId);
+        if (interval.inCustomerTree && customerTree != null) {
+            customerTree.remove(interval.start, appointmentId);
+        }
+        IntervalTree<Appointment> contactTree = treesByContact.get(interval.contactId);
+        if (interval.inContactTree && contactTree != null) {
+            contactTree.remove(interval.start, appointmentId);
+        }
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Where an appointment was indexed, kept because the Appointment object itself can be changed afterwards.
+     */
+    private static class IndexedInterval {
+        private final int customerId;
+        private final int contactId;
+        private final long start;
+        private final long end;
+        private boolean inCustomerTree = false;
+        private boolean inContactTree = false;
+
+        private IndexedInterval(Appointment appointment) {
+            this.customerId = appointment.getCustomerId();
+            this.contactId = appointment.getContactId();
+            this.start = toSeconds(appointment.getStart());
+            this.end = toSeconds(appointment.getEnd());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package DAO;
+
+import helper.TimingWheel;
+import javafx.application.Platform;
+import model.Appointment;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The AppointmentReminders class reminds the logged-in user of each of their appointments 15 minutes before it starts,
+ * for as long as the application runs.
+ *
+ * The user's appointments of the next few hours are read with one indexed query and put on a timing wheel, which a
+ * background thread advances every second. When the clock nears the end of the loaded hours the next ones are read,
+ * so the table is never scanned again. Appointments added, moved or deleted in this application reach the wheel
+ * through the DBAppointments change listeners. Reminders are delivered on the JavaFX Application Thread.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class AppointmentReminders {
+
+    private static final long LEAD_MINUTES = 15;
+    private static final long HORIZON_HOURS = 4;
+    private static final long TICK_MILLIS = 1000;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "appointment-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<Integer, TimingWheel.Timer<Appointment>> timersById = new HashMap<>();
+    private static TimingWheel<Appointment> wheel;
+    private static ScheduledFuture<?> ticker;
+    private static Consumer<Appointment> onReminder;
+    private static int userId;
+    private static LocalDateTime loadedUntil;
+    private static boolean refreshing = false;
+
+    static {
+        DBAppointments.addChangeListener(new DBAppointments.ChangeListener() {
+            @Override
+            public void inserted(Appointment appointment) {
+                schedule(appointment);
+            }
+
+            @Override
+            public void updated(Appointment appointment) {
+                synchronized (AppointmentReminders.class) {
+                    cancel(appointment.getId());
+                    schedule(appointment);
+                }
+            }
+
+            @Override
+            public void deleted(Appointment appointment) {
+                cancel(appointment.getId());
+            }
+
+            @Override
+            public void deletedForCustomer(int customerId) {
+                synchronized (AppointmentReminders.class) {
+                    timersById.values().removeIf(timer -> {
+                        boolean ofCustomer = timer.getTask().getCustomerId() == customerId;
+                        if (ofCustomer) {
+                            wheel.cancel(timer);
+                        }
+                        return ofCustomer;
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts reminding a user of their appointments, replacing any earlier user.
+     *
+     * @param user          The ID of the logged-in user.
+     * @param reminder      The action run for each appointment that starts within 15 minutes.
+     * @param nothingDueNow The action run once if no appointment starts within 15 minutes of now.
+     */
+    public static synchronized void start(int user, Consumer<Appointment> reminder, Runnable nothingDueNow) {
+        stop();
+        userId = user;
+        onReminder = reminder;
+        wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+        LocalDateTime now = now();
+        loadedUntil = now;
+        refreshing = true;
+        DBAsync.supply(() -> DBAppointments.selectByUserAndStartRange(user, now, now.plusHours(HORIZON_HOURS)))
+                .whenComplete((appointments, error) -> {
+                    boolean anyDue = loaded(user, now.plusHours(HORIZON_HOURS), appointments, error);
+                    if (!anyDue && error == null) {
+                        Platform.runLater(nothingDueNow);
+                    }
+                });
+        ticker = scheduler.scheduleAtFixedRate(AppointmentReminders::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the reminders, for example when the user logs out.
+     */
+    public static synchronized void stop() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+        timersById.clear();
+        wheel = null;
+        onReminder = null;
+    }
+
+    /**
+     * Advances the wheel to the current time and reads the next hours once the loaded ones are running out.
+     */
+    private static synchronized void tick() {
+        if (wheel == null) {
+            return;
+        }
+        Consumer<Appointment> reminder = onReminder;
+        wheel.advanceTo(System.currentTimeMillis(), appointment -> {
+            timersById.remove(appointment.getId());
+            Platform.runLater(() -> reminder.accept(appointment));
+        });
+
+        LocalDateTime now = now();
+        if (!refreshing && now.plusHours(HORIZON_HOURS / 2).isAfter(loadedUntil)) {
+            LocalDateTime from = loadedUntil;
+            LocalDateTime to = now.plusHours(HORIZON_HOURS);
+            int user = userId;
+            refreshing = true;
+            DBAsync.supply(() -> DBAppointments.selectByUserAndStartRange(user, from, to))
+                    .whenComplete((appointments, error) -> loaded(user, to, appointments, error));
+        }
+    }
+
+    /**
+     * Puts the appointments of a finished query on the wheel.
+     *
+     * @return True if one of them starts within 15 minutes of now.
+     */
+    private static synchronized boolean loaded(int user, LocalDateTime until, List<Appointment> appointments, Throwable error) {
+        refreshing = false;
+        if (wheel == null || user != userId) {
+            return false;
+        }
+        if (error != null) {
+            System.out.println("Could not load upcoming appointments: " + error.getMessage());
+            return false;
+        }
+        loadedUntil = until;
+        boolean anyDue = false;
+        LocalDateTime dueBefore = now().plusMinutes(LEAD_MINUTES);
+        for (Appointment appointment : appointments) {
+            schedule(appointment);
+            anyDue |= appointment.getStart().isBefore(dueBefore);
+        }
+        return anyDue;
+    }
+
+    private static synchronized void schedule(Appointment appointment) {
+        if (wheel == null || appointment.getUserId() != userId || appointment.getStart() == null
+                || timersById.containsKey(appointment.getId())) {
+            return;
+        }
+        LocalDateTime now = now();
+        if (appointment.getStart().isBefore(now) || !appointment.getStart().isBefore(loadedUntil)) {
+            return;
+        }
+        long dueMillis = appointment.getStart().minusMinutes(LEAD_MINUTES).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        timersById.put(appointment.getId(), wheel.schedule(dueMillis, new Appointment(appointment)));
+    }
+
+    private static synchronized void cancel(int appointmentId) {
+        TimingWheel.Timer<Appointment> timer = timersById.remove(appointmentId);
+        if (timer != null && wheel != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    /**
+     * Gets the current wall time of the user, the frame appointment starts are stored in.
+     */
+    private static LocalDateTime now() {
+        return LocalDateTime.now();
+    }
+}
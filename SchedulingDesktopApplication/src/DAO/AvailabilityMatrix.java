@@ -0,0 +1,275 @@
+package DAO;
+
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AvailabilityMatrix class keeps, for each customer and each contact, one long per day in which bit i is set when
+ * the half hour starting i * 30 minutes after midnight is booked. With 48 half hours in a day, one word holds a whole
+ * day, so the free times of a customer and a contact together are one OR and one NOT, and a week for both is a few
+ * dozen word operations.
+ *
+ * A day's word is built from the interval trees of AppointmentIndex the first time it is asked for. The words of the
+ * days an appointment covers are dropped when it is inserted, changed or deleted, and are built again on the next
+ * request. Days are counted in the user's time zone, the frame the appointment forms save in.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class AvailabilityMatrix {
+
+    /**
+     * The number of half-hour slots in a day.
+     */
+    public static final int SLOTS_PER_DAY = 48;
+
+    private static final long SLOT_SECONDS = 30 * 60;
+    private static final long DAY_MASK = (1L << SLOTS_PER_DAY) - 1;
+    /**
+     * Set in every built word, so a word of 0 means the day has not been built yet.
+     */
+    private static final long BUILT = 1L << 63;
+    private static final int firstCachedDay = (int) LocalDate.now().minusYears(1).toEpochDay();
+
+    private static final Map<Integer, long[]> customerDays = new HashMap<>();
+    private static final Map<Integer, long[]> contactDays = new HashMap<>();
+    private static final Map<Integer, Footprint> footprintsById = new HashMap<>();
+
+    static {
+        DBAppointments.addChangeListener(new DBAppointments.ChangeListener() {
+            @Override
+            public void inserted(Appointment appointment) {
+                invalidate(appointment);
+            }
+
+            @Override
+            public void updated(Appointment appointment) {
+                invalidate(appointment);
+            }
+
+            @Override
+            public void deleted(Appointment appointment) {
+                invalidate(appointment);
+            }
+
+            @Override
+            public void deletedForCustomer(int customerId) {
+                synchronized (AvailabilityMatrix.class) {
+                    customerDays.remove(customerId);
+                    footprintsById.values().removeIf(footprint -> {
+                        if (footprint.customerId != customerId) {
+                            return false;
+                        }
+                        clear(contactDays.get(footprint.contactId), footprint.firstDay, footprint.lastDay);
+                        return true;
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the half hours of a day in which both a customer and a contact are free.
+     *
+     * @param customerId           The ID of the customer, or 0 to ignore customers.
+     * @param contactId            The ID of the contact, or 0 to ignore contacts.
+     * @param day                  The day.
+     * @param excludeAppointmentId The ID of an appointment whose time counts as free, for example the one being edited,
+     *                             or 0 to exclude none.
+     * @return A word in which bit i is set when the half hour starting i * 30 minutes after midnight is free.
+     * @throws SQLException If appointments had to be loaded and a database error occurred.
+     */
+    public static synchronized long freeSlots(int customerId, int contactId, LocalDate day, int excludeAppointmentId) throws SQLException {
+        int epochDay = (int) day.toEpochDay();
+        long busy = 0;
+        if (customerId > 0) {
+            busy |= busySlots(customerDays, customerId, true, epochDay, excludeAppointmentId);
+        }
+        if (contactId > 0) {
+            busy |= busySlots(contactDays, contactId, false, epochDay, excludeAppointmentId);
+        }
+        return ~busy & DAY_MASK;
+    }
+
+    /**
+     * Gets the half hours of several days in which both a customer and a contact are free.
+     *
+     * @param customerId The ID of the customer, or 0 to ignore customers.
+     * @param contactId  The ID of the contact, or 0 to ignore contacts.
+     * @param firstDay   The first day.
+     * @param days       The number of days.
+     * @return One word per day, as returned by {@link #freeSlots(int, int, LocalDate, int)}.
+     * @throws SQLException If appointments had to be loaded and a database error occurred.
+     */
+    public static synchronized long[] freeSlotsOfDays(int customerId, int contactId, LocalDate firstDay, int days) throws SQLException {
+        long[] free = new long[days];
+        for (int i = 0; i < days; i++) {
+            free[i] = freeSlots(customerId, contactId, firstDay.plusDays(i), 0);
+        }
+        return free;
+    }
+
+    /**
+     * Keeps the start times whose half hour is free.
+     *
+     * @param free       The free half hours of the day.
+     * @param candidates The start times to choose from.
+     * @return The free start times, in the order given.
+     */
+    public static List<LocalTime> freeStartTimes(long free, List<LocalTime> candidates) {
+        List<LocalTime> times = new ArrayList<>();
+        for (LocalTime time : candidates) {
+            if ((free >>> slotOf(time) & 1) != 0) {
+                times.add(time);
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Keeps the end times that can follow a start time without running into a booked half hour.
+     * Without a start time, keeps the end times whose preceding half hour is free.
+     *
+     * @param free       The free half hours of the day.
+     * @param start      The chosen start time, or null.
+     * @param candidates The end times to choose from.
+     * @return The possible end times, in the order given.
+     */
+    public static List<LocalTime> freeEndTimes(long free, LocalTime start, List<LocalTime> candidates) {
+        List<LocalTime> times = new ArrayList<>();
+        int startSlot = start != null ? slotOf(start) : -1;
+        // The free half hours right after the start, as a count of consecutive set bits
+        int freeRun = start != null ? Long.numberOfTrailingZeros(~(free >>> startSlot)) : 0;
+        for (LocalTime time : candidates) {
+            int endSlot = time.equals(LocalTime.MIDNIGHT) ? SLOTS_PER_DAY : slotOf(time);
+            boolean possible = start != null
+                    ? endSlot > startSlot && endSlot - startSlot <= freeRun
+                    : endSlot > 0 && (free >>> (endSlot - 1) & 1) != 0;
+            if (possible) {
+                times.add(time);
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Discards every word, so they are built again on the next request.
+     */
+    public static synchronized void clear() {
+        customerDays.clear();
+        contactDays.clear();
+        footprintsById.clear();
+    }
+
+    /**
+     * Gets the index of the half hour a time falls in.
+     */
+    private static int slotOf(LocalTime time) {
+        return time.getHour() * 2 + time.getMinute() / 30;
+    }
+
+    private static long busySlots(Map<Integer, long[]> daysByOwner, int ownerId, boolean byCustomer, int epochDay,
+                                  int excludeAppointmentId) throws SQLException {
+        int index = epochDay - firstCachedDay;
+        if (excludeAppointmentId != 0 || index < 0) {
+            return build(ownerId, byCustomer, epochDay, excludeAppointmentId, false);
+        }
+        long[] words = daysByOwner.get(ownerId);
+        if (words == null || index >= words.length) {
+            int length = words != null ? words.length : 0;
+            words = Arrays.copyOf(words != null ? words : new long[0], Math.max(index + 1, Math.max(2 * length, 800)));
+            daysByOwner.put(ownerId, words);
+        }
+        if (words[index] == 0) {
+            words[index] = build(ownerId, byCustomer, epochDay, 0, true) | BUILT;
+        }
+        return words[index] & DAY_MASK;
+    }
+
+    /**
+     * Builds the word of one day from the appointments that overlap it.
+     */
+    private static long build(int ownerId, boolean byCustomer, int epochDay, int excludeAppointmentId,
+                              boolean remember) throws SQLException {
+        LocalDateTime dayStart = LocalDate.ofEpochDay(epochDay).atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        List<Appointment> appointments = byCustomer
+                ? AppointmentIndex.findOverlapping(ownerId, dayStart, dayEnd, excludeAppointmentId)
+                : AppointmentIndex.findContactOverlapping(ownerId, dayStart, dayEnd, excludeAppointmentId);
+        long startSeconds = toSeconds(dayStart);
+        long word = 0;
+        for (Appointment appointment : appointments) {
+            long from = Math.max(toSeconds(appointment.getStart()), startSeconds) - startSeconds;
+            long to = Math.min(toSeconds(appointment.getEnd()), startSeconds + SLOTS_PER_DAY * SLOT_SECONDS) - startSeconds;
+            int firstSlot = (int) (from / SLOT_SECONDS);
+            int endSlot = (int) ((to + SLOT_SECONDS - 1) / SLOT_SECONDS);
+            if (endSlot > firstSlot) {
+                word |= ((1L << (endSlot - firstSlot)) - 1) << firstSlot;
+            }
+            if (remember) {
+                footprintsById.computeIfAbsent(appointment.getId(), id -> new Footprint(appointment))
+                        .cover(epochDay);
+            }
+        }
+        return word & DAY_MASK;
+    }
+
+    private static synchronized void invalidate(Appointment appointment) {
+        Footprint old = footprintsById.remove(appointment.getId());
+        if (old != null) {
+            clear(customerDays.get(old.customerId), old.firstDay, old.lastDay);
+            clear(contactDays.get(old.contactId), old.firstDay, old.lastDay);
+        }
+        if (appointment.getStart() != null && appointment.getEnd() != null) {
+            Footprint current = new Footprint(appointment);
+            clear(customerDays.get(current.customerId), current.firstDay, current.lastDay);
+            clear(contactDays.get(current.contactId), current.firstDay, current.lastDay);
+        }
+    }
+
+    private static void clear(long[] words, int firstDay, int lastDay) {
+        if (words == null) {
+            return;
+        }
+        for (int day = Math.max(firstDay, firstCachedDay); day <= lastDay && day - firstCachedDay < words.length; day++) {
+            words[day - firstCachedDay] = 0;
+        }
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * The customer, contact and days of an appointment that went into built words, kept because the Appointment
+     * object itself can be changed afterwards.
+     */
+    private static class Footprint {
+        private final int customerId;
+        private final int contactId;
+        private int firstDay;
+        private int lastDay;
+
+        private Footprint(Appointment appointment) {
+            this.customerId = appointment.getCustomerId();
+            this.contactId = appointment.getContactId();
+            this.firstDay = (int) appointment.getStart().toLocalDate().toEpochDay();
+            this.lastDay = (int) appointment.getEnd().toLocalDate().toEpochDay();
+        }
+
+        private void cover(int day) {
+            firstDay = Math.min(firstDay, day);
+            lastDay = Math.max(lastDay, day);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package DAO;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Appointment;
+import model.AppointmentStore;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The CalendarIndex class buckets appointments by the day they start, so the week, month and any other date-range
+ * views are read by slicing buckets instead of filtering every appointment.
+ *
+ * Days are the epoch days of the start as stored, in the user's wall time the forms save in, kept in a sorted int
+ * array with one bucket per day. Each bucket holds its appointments sorted by start and ID in parallel primitive
+ * arrays, as row numbers into one columnar AppointmentStore, and pages are returned as read-only views of those rows.
+ * When the store holds more deleted rows than live ones it is compacted, and the row numbers are mapped to the new
+ * store; pages already returned keep reading the old one. Appointments are loaded from the database a month at a
+ * time, the first time a range touches that month, and the loaded months are kept up to date through the
+ * DBAppointments change listeners. Occurrences of recurring appointments are worked out for each request and merged
+ * into the page.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class CalendarIndex {
+
+    private static int[] days = new int[0];
+    private static Bucket[] buckets = new Bucket[0];
+    private static AppointmentStore store = new AppointmentStore();
+    private static final Map<Integer, Integer> rowById = new HashMap<>();
+    private static final Set<YearMonth> loadedMonths = new HashSet<>();
+
+    static {
+        DBAppointments.addChangeListener(new DBAppointments.ChangeListener() {
+            @Override
+            public void inserted(Appointment appointment) {
+                add(appointment);
+            }
+
+            @Override
+            public void updated(Appointment appointment) {
+                synchronized (CalendarIndex.class) {
+                    remove(appointment.getId());
+                    add(appointment);
+                }
+            }
+
+            @Override
+            public void deleted(Appointment appointment) {
+                remove(appointment.getId());
+            }
+
+            @Override
+            public void deletedForCustomer(int customerId) {
+                synchronized (CalendarIndex.class) {
+                    for (Bucket bucket : buckets) {
+                        for (int i = bucket.size - 1; i >= 0; i--) {
+                            if (store.getCustomerId(bucket.rows[i]) == customerId) {
+                                store.remove(rowById.remove(bucket.ids[i]));
+                                bucket.removeAt(i);
+                            }
+                        }
+                    }
+                    compactIfNeeded();
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets every appointment starting between two days, ordered by start.
+     *
+     * @param firstDay The first day, in the user's time zone.
+     * @param lastDay  The last day, included.
+     * @return An ObservableList of read-only views of the appointments.
+     * @throws SQLException If a month had to be loaded and a database error occurred.
+     */
+    public static synchronized ObservableList<Appointment> range(LocalDate firstDay, LocalDate lastDay) throws SQLException {
+        return page(firstDay, lastDay, null, false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets one page of the appointments starting between two days, ordered by start and ID.
+     *
+     * @param firstDay   The first day, in the user's time zone.
+     * @param lastDay    The last day, included.
+     * @param after      The last appointment of the previous page, or null for the first page.
+     * @param descending True to return the latest appointments first.
+     * @param pageSize   The maximum number of appointments to return.
+     * @return An ObservableList with read-only views of the appointments of the page.
+     * @throws SQLException If a month had to be loaded and a database error occurred.
+     */
+    public static synchronized ObservableList<Appointment> page(LocalDate firstDay, LocalDate lastDay, Appointment after,
+                                                                boolean descending, int pageSize) throws SQLException {
+        ensureLoaded(firstDay, lastDay);
+        ObservableList<Appointment> page = FXCollections.observableArrayList();
+        boolean hasAfter = after != null;
+        int from = lowerBound((int) firstDay.toEpochDay());
+        int to = lowerBound((int) lastDay.toEpochDay() + 1) - 1;
+
+        long afterStart = 0;
+        int afterId = 0;
+        if (after != null) {
+            afterStart = toSeconds(after.getStart());
+            afterId = after.getId();
+            int afterDay = lowerBound(epochDay(after.getStart()));
+            if (descending) {
+                to = Math.min(to, afterDay);
+            } else {
+                from = Math.max(from, afterDay);
+            }
+        }
+
+        if (descending) {
+            for (int d = to; d >= from && page.size() < pageSize; d--) {
+                Bucket bucket = buckets[d];
+                int i = (after != null) ? bucket.search(afterStart, afterId, false) - 1 : bucket.size - 1;
+                for (; i >= 0 && page.size() < pageSize; i--) {
+                    page.add(store.view(bucket.rows[i]));
+                }
+                after = null;
+            }
+        } else {
+            for (int d = from; d <= to && page.size() < pageSize; d++) {
+                Bucket bucket = buckets[d];
+                int i = (after != null) ? bucket.search(afterStart, afterId, true) : 0;
+                for (; i < bucket.size && page.size() < pageSize; i++) {
+                    page.add(store.view(bucket.rows[i]));
+                }
+                after = null;
+            }
+        }
+        return withOccurrences(page, firstDay, lastDay, hasAfter, afterStart, afterId, descending, pageSize);
+    }
+
+    /**
+     * Adds the occurrences of recurring appointments that start between two days to a page, keeping its order
+     * and size. Occurrences are worked out for the days asked for only, and never stored in the buckets.
+     */
+    private static ObservableList<Appointment> withOccurrences(ObservableList<Appointment> page, LocalDate firstDay,
+                                                               LocalDate lastDay, boolean hasAfter, long afterStart,
+                                                               int afterId, boolean descending, int pageSize) throws SQLException {
+        LocalDateTime from = firstDay.atStartOfDay();
+        LocalDateTime to = lastDay.plusDays(1).atStartOfDay();
+        List<Appointment> occurrences = new ArrayList<>();
+        for (Appointment occurrence : RecurringAppointments.occurrences(from, to, 0, 0, 0)) {
+            // Keep only occurrences that start in the window and come after the previous page
+            if (occurrence.getStart().isBefore(from)) {
+                continue;
+            }
+            if (hasAfter) {
+                long start = toSeconds(occurrence.getStart());
+                int comparison = (start != afterStart) ? Long.compare(start, afterStart) : Integer.compare(occurrence.getId(), afterId);
+                if (descending ? comparison >= 0 : comparison <= 0) {
+                    continue;
+                }
+            }
+            occurrences.add(occurrence);
+        }
+        if (occurrences.isEmpty()) {
+            return page;
+        }
+        List<Appointment> merged;
+        if (descending) {
+            List<Appointment> ascending = new ArrayList<>(page);
+            Collections.reverse(ascending);
+            merged = RecurringAppointments.merge(ascending, occurrences);
+            Collections.reverse(merged);
+        } else {
+            merged = RecurringAppointments.merge(page, occurrences);
+        }
+        return FXCollections.observableArrayList(merged.subList(0, Math.min(pageSize, merged.size())));
+    }
+
+    /**
+     * Discards every bucket, so appointments are read again from the database on the next request.
+     */
+    public static synchronized void clear() {
+        days = new int[0];
+        buckets = new Bucket[0];
+        store = new AppointmentStore();
+        rowById.clear();
+        loadedMonths.clear();
+    }
+
+    /**
+     * Estimates the heap used by the appointments held in the index.
+     *
+     * @return The estimated size in bytes.
+     */
+    public static synchronized long estimateBytes() {
+        return store.estimateBytes();
+    }
+
+    private static void ensureLoaded(LocalDate firstDay, LocalDate lastDay) throws SQLException {
+        for (YearMonth month = YearMonth.from(firstDay); !month.isAfter(YearMonth.from(lastDay)); month = month.plusMonths(1)) {
+            if (loadedMonths.contains(month)) {
+                continue;
+            }
+            int[] rows = DBAppointments.selectColumns(month.atDay(1).atStartOfDay(),
+                    month.plusMonths(1).atDay(1).atStartOfDay(), store);
+            loadedMonths.add(month);
+            for (int row : rows) {
+                if (rowById.containsKey(store.getId(row))) {
+                    store.remove(row);
+                } else {
+                    addRow(row);
+                }
+            }
+        }
+        compactIfNeeded();
+    }
+
+    private static synchronized void add(Appointment appointment) {
+        if (appointment.getStart() == null) {
+            return;
+        }
+        int day = epochDay(appointment.getStart());
+        if (!loadedMonths.contains(YearMonth.from(LocalDate.ofEpochDay(day))) || rowById.containsKey(appointment.getId())) {
+            return;
+        }
+        addRow(store.add(appointment));
+    }
+
+    private static void addRow(int row) {
+        long start = store.getStartSeconds(row);
+        int day = epochDay(AppointmentStore.toDateTime(start));
+        int index = lowerBound(day);
+        if (index == days.length || days[index] != day) {
+            int[] newDays = new int[days.length + 1];
+            Bucket[] newBuckets = new Bucket[buckets.length + 1];
+            System.arraycopy(days, 0, newDays, 0, index);
+            System.arraycopy(buckets, 0, newBuckets, 0, index);
+            System.arraycopy(days, index, newDays, index + 1, days.length - index);
+            System.arraycopy(buckets, index, newBuckets, index + 1, buckets.length - index);
+            newDays[index] = day;
+            newBuckets[index] = new Bucket();
+            days = newDays;
+            buckets = newBuckets;
+        }
+        buckets[index].add(start, store.getId(row), row);
+        rowById.put(store.getId(row), row);
+    }
+
+    private static synchronized void remove(int appointmentId) {
+        Integer row = rowById.remove(appointmentId);
+        if (row == null) {
+            return;
+        }
+        store.remove(row);
+        int day = epochDay(AppointmentStore.toDateTime(store.getStartSeconds(row)));
+        int index = lowerBound(day);
+        if (index < days.length && days[index] == day) {
+            Bucket bucket = buckets[index];
+            for (int i = 0; i < bucket.size; i++) {
+                if (bucket.ids[i] == appointmentId) {
+                    bucket.removeAt(i);
+                    break;
+                }
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Replaces the store with a compacted copy once it holds mostly deleted rows, and maps the row numbers in the
+     * buckets and in rowById to the copy.
+     */
+    private static void compactIfNeeded() {
+        if (!store.needsCompaction()) {
+            return;
+        }
+        int[] newRows = new int[store.size()];
+        store = store.compact(newRows);
+        for (Bucket bucket : buckets) {
+            for (int i = 0; i < bucket.size; i++) {
+                bucket.rows[i] = newRows[bucket.rows[i]];
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : rowById.entrySet()) {
+            entry.setValue(newRows[entry.getValue()]);
+        }
+    }
+
+    /**
+     * Returns the index of the first bucket whose day is not before the given day.
+     */
+    private static int lowerBound(int day) {
+        int index = Arrays.binarySearch(days, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int epochDay(LocalDateTime start) {
+        return (int) start.toLocalDate().toEpochDay();
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return AppointmentStore.toSeconds(dateTime);
+    }
+
+    /**
+     * The appointments of one day, sorted by start and ID. The start and ID are copied next to the row number,
+     * so a search does not have to read the store.
+     */
+    private static class Bucket {
+        private long[] starts = new long[4];
+        private int[] ids = new int[4];
+        private int[] rows = new int[4];
+        private int size = 0;
+
+        private void add(long start, int id, int row) {
+            if (size == ids.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            int index = search(start, id, true);
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(rows, index, rows, index + 1, size - index);
+            starts[index] = start;
+            ids[index] = id;
+            rows[index] = row;
+            size++;
+        }
+
+        private void removeAt(int index) {
+            System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(rows, index + 1, rows, index, size - index - 1);
+            size--;
+        }
+
+        /**
+         * Returns the index of the first entry after the given start and ID, or, when the entry with exactly
+         * that start and ID should not be skipped, the index of the first entry not before it.
+         */
+        private int search(long start, int id, boolean skipEqual) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < start || (starts[middle] == start
+                        && (skipEqual ? ids[middle] <= id : ids[middle] < id))) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
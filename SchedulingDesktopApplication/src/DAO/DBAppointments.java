@@ -1,17 +1,31 @@
 package DAO;
 
 import helper.JDBC;
+import helper.StringDictionary;
+import helper.TableDelta;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Appointment;
+import model.AppointmentStore;
 import model.Contact;
+import model.RecurrenceRule;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -22,35 +36,145 @@ import java.util.stream.Collectors;
 public abstract class DBAppointments {
 
     /**
-     * Inserts a new appointment into the database.
+     * Gives the repeated values in the type, location and audit columns of every appointment row one shared instance.
+     */
+    private static final StringDictionary dictionary = StringDictionary.shared;
+
+    /**
+     * The columns appointment pages can be sorted by, keyed by the Appointment property shown in the table.
+     */
+    private static final Map<String, String> sortColumns = Map.of(
+            "id", "Appointment_ID",
+            "title", "Title",
+            "description", "Description",
+            "location", "Location",
+            "type", "Type",
+            "start", "Start",
+            "end", "End",
+            "customerId", "Customer_ID",
+            "userId", "User_ID",
+            "contactId", "Contact_ID");
+
+    /**
+     * Receives the changes made to appointments through this class, after they have been written to the database.
+     * Every method does nothing by default, so a listener only implements the changes it cares about.
+     */
+    public interface ChangeListener {
+        /**
+         * Called after an appointment has been inserted. Its ID is the one generated by the database.
+         *
+         * @param appointment The inserted appointment.
+         */
+        default void inserted(Appointment appointment) {}
+
+        /**
+         * Called after an appointment has been updated.
+         *
+         * @param appointment The appointment with its new values.
+         */
+        default void updated(Appointment appointment) {}
+
+        /**
+         * Called after an appointment has been deleted.
+         *
+         * @param appointment The deleted appointment.
+         */
+        default void deleted(Appointment appointment) {}
+
+        /**
+         * Called after all appointments of a customer have been deleted.
+         *
+         * @param customerId The ID of the customer.
+         */
+        default void deletedForCustomer(int customerId) {}
+    }
+
+    private static final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener for appointment changes.
+     *
+     * @param listener The listener to add.
+     */
+    public static void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener for appointment changes.
+     *
+     * @param listener The listener to remove.
+     */
+    public static void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells the listeners that an appointment has changed without an update of its row, for example when the rule
+     * of a recurring appointment changed.
+     *
+     * @param appointment The appointment.
+     */
+    static void fireUpdated(Appointment appointment) {
+        for (ChangeListener listener : listeners) {
+            listener.updated(appointment);
+        }
+    }
+
+    /**
+     * Tells the listeners that all appointments of a customer have been deleted.
+     *
+     * @param customerId The ID of the customer.
+     */
+    static void fireDeletedForCustomer(int customerId) {
+        for (ChangeListener listener : listeners) {
+            listener.deletedForCustomer(customerId);
+        }
+    }
+
+    /**
+     * Inserts a new appointment into the database. Last_Update is set from the database clock, which the
+     * change queries of every client compare with.
+     * When the appointment has no ID yet (0), the ID generated by the database is set on it.
      *
      * @param appointment The appointment to insert.
      * @return The number of rows affected by the insertion.
      * @throws SQLException If a database error occurs.
      */
     public static int insert(Appointment appointment) throws SQLException {
-        String sql = "insert into appointments (Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) values(?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, appointment.getId());
-        ps.setString(2, appointment.getTitle());
-        ps.setString(3, appointment.getDescription());
-        ps.setString(4, appointment.getLocation());
-        ps.setString(5, appointment.getType());
-        ps.setTimestamp(6, Timestamp.valueOf(appointment.getStart()));
-        ps.setTimestamp(7, Timestamp.valueOf(appointment.getEnd()));
-        ps.setTimestamp(8, Timestamp.valueOf(appointment.getCreatedDate()));
-        ps.setString(9,appointment.getCreatedBy());
-        ps.setTimestamp(10, Timestamp.valueOf(appointment.getLastUpdated()));
-        ps.setString(11,appointment.getLastUpdatedBy());
-        ps.setInt(12, appointment.getCustomerId());
-        ps.setInt(13, appointment.getUserId());
-        ps.setInt(14, appointment.getContactId());
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        String sql = "insert into appointments (Appointment_ID, Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) values(?,?,?,?,?,?,?,?,?,now(),?,?,?,?)";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, appointment.getId());
+            ps.setString(2, appointment.getTitle());
+            ps.setString(3, appointment.getDescription());
+            ps.setString(4, appointment.getLocation());
+            ps.setString(5, appointment.getType());
+            ps.setTimestamp(6, Timestamp.valueOf(appointment.getStart()));
+            ps.setTimestamp(7, Timestamp.valueOf(appointment.getEnd()));
+            ps.setTimestamp(8, Timestamp.valueOf(appointment.getCreatedDate()));
+            ps.setString(9,appointment.getCreatedBy());
+            ps.setString(10,appointment.getLastUpdatedBy());
+            ps.setInt(11, appointment.getCustomerId());
+            ps.setInt(12, appointment.getUserId());
+            ps.setInt(13, appointment.getContactId());
+            int rowsAffected = ps.executeUpdate();
+            if (appointment.getId() == 0) {
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        appointment.setId(keys.getInt(1));
+                    }
+                }
+            }
+            for (ChangeListener listener : listeners) {
+                listener.inserted(appointment);
+            }
+            return rowsAffected;
+        }
     }
 
     /**
-     * Updates an existing appointment in the database.
+     * Updates an existing appointment in the database. Last_Update is set from the database clock.
      *
      * @param appointment The appointment to update.
      * @return The number of rows affected by the update.
@@ -64,31 +188,35 @@ public abstract class DBAppointments {
                 "Type = ?, " +
                 "Start = ?, " +
                 "End = ?, " +
-                "Last_Update = ?, " +
+                "Last_Update = now(), " +
                 "Contact_ID = ?, " +
                 "User_ID = ?, " +
                 "Customer_ID = ? " +
                 "WHERE Appointment_ID = ?"; // Add more conditions as needed
 
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setString(1, appointment.getTitle());
-        ps.setString(2, appointment.getDescription());
-        ps.setString(3, appointment.getLocation());
-        ps.setString(4, appointment.getType());
-        ps.setTimestamp(5, Timestamp.valueOf(appointment.getStart()));
-        ps.setTimestamp(6, Timestamp.valueOf(appointment.getEnd()));
-        ps.setTimestamp(7, Timestamp.valueOf(appointment.getLastUpdated()));
-        ps.setInt(8, appointment.getContactId());
-        ps.setInt(9, appointment.getUserId());
-        ps.setInt(10, appointment.getCustomerId()); // Additional condition value
-        ps.setInt(11, appointment.getId());
-
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, appointment.getTitle());
+            ps.setString(2, appointment.getDescription());
+            ps.setString(3, appointment.getLocation());
+            ps.setString(4, appointment.getType());
+            ps.setTimestamp(5, Timestamp.valueOf(appointment.getStart()));
+            ps.setTimestamp(6, Timestamp.valueOf(appointment.getEnd()));
+            ps.setInt(7, appointment.getContactId());
+            ps.setInt(8, appointment.getUserId());
+            ps.setInt(9, appointment.getCustomerId()); // Additional condition value
+            ps.setInt(10, appointment.getId());
+
+            int rowsAffected = ps.executeUpdate();
+            for (ChangeListener listener : listeners) {
+                listener.updated(appointment);
+            }
+            return rowsAffected;
+        }
     }
 
     /**
-     * Deletes an appointment from the database.
+     * Deletes an appointment from the database and records the delete in deleted_rows, in one transaction.
      *
      * @param appointment The appointment to delete.
      * @return The number of rows affected by the deletion.
@@ -96,10 +224,24 @@ public abstract class DBAppointments {
      */
     public static int delete(Appointment appointment) throws SQLException {
         String sql = "delete from appointments where Appointment_ID = ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, appointment.getId());
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setInt(1, appointment.getId());
+                int rowsAffected = ps.executeUpdate();
+                DBTombstones.record(connection, "appointments", appointment.getId());
+                connection.commit();
+                for (ChangeListener listener : listeners) {
+                    listener.deleted(appointment);
+                }
+                return rowsAffected;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
     }
 
     /**
@@ -111,36 +253,38 @@ public abstract class DBAppointments {
     public static ObservableList<Appointment> select() throws SQLException {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
         String sql = "select * from appointments";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()){
-            int appointmentId = rs.getInt("Appointment_ID");
-            String appointmentTitle = rs.getString("Title");
-            String appointmentDescription = rs.getString("Description");
-            String appointmentLocation = rs.getString("Location");
-            String appointmentType = rs.getString("Type");
-            Timestamp start = rs.getTimestamp("Start");
-            Timestamp end = rs.getTimestamp("End");
-            Timestamp createdDate = rs.getTimestamp("Create_Date");
-            String createdBy = rs.getString("Created_By");
-            Timestamp lastUpdated = rs.getTimestamp("Last_Update");
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int customerId = rs.getInt("Customer_ID");
-            int userId = rs.getInt("User_ID");
-            int contactId = rs.getInt("Contact_ID");
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            LocalDateTime startDate = (start != null) ? start.toLocalDateTime() : null;
-            LocalDateTime endDate = (end != null) ? end.toLocalDateTime(): null;
-            LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
-            LocalDateTime lastUpdateDateTime = (lastUpdated != null) ? lastUpdated.toLocalDateTime() : null;
-
-            Appointment appointment = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startDate, endDate, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy,customerId, userId, contactId);
-            //System.out.println(appointment);
-            appointmentList.add(appointment);
-            //System.out.println(appointmentList.size());
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                int appointmentId = rs.getInt("Appointment_ID");
+                String appointmentTitle = rs.getString("Title");
+                String appointmentDescription = rs.getString("Description");
+                String appointmentLocation = dictionary.intern(rs.getString("Location"));
+                String appointmentType = dictionary.intern(rs.getString("Type"));
+                Timestamp start = rs.getTimestamp("Start");
+                Timestamp end = rs.getTimestamp("End");
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                String createdBy = dictionary.intern(rs.getString("Created_By"));
+                Timestamp lastUpdated = rs.getTimestamp("Last_Update");
+                String lastUpdatedBy = dictionary.intern(rs.getString("Last_Updated_By"));
+                int customerId = rs.getInt("Customer_ID");
+                int userId = rs.getInt("User_ID");
+                int contactId = rs.getInt("Contact_ID");
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+                LocalDateTime startDate = (start != null) ? start.toLocalDateTime() : null;
+                LocalDateTime endDate = (end != null) ? end.toLocalDateTime(): null;
+                LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
+                LocalDateTime lastUpdateDateTime = (lastUpdated != null) ? lastUpdated.toLocalDateTime() : null;
+
+                Appointment appointment = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startDate, endDate, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy,customerId, userId, contactId);
+                //System.out.println(appointment);
+                appointmentList.add(appointment);
+                //System.out.println(appointmentList.size());
+            }
+            return appointmentList;
         }
-        return appointmentList;
     }
 
     /**
@@ -153,36 +297,38 @@ public abstract class DBAppointments {
     public static ObservableList<Appointment> select(int contactId) throws SQLException {
         ObservableList<Appointment> filteredAppointmentList = FXCollections.observableArrayList();
         String sql = "select * from appointments where Contact_ID=?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, contactId);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()){
-            int appointmentId = rs.getInt("Appointment_ID");
-            String appointmentTitle = rs.getString("Title");
-            String appointmentDescription = rs.getString("Description");
-            String appointmentLocation = rs.getString("Location");
-            String appointmentType = rs.getString("Type");
-            Timestamp start = rs.getTimestamp("Start");
-            Timestamp end = rs.getTimestamp("End");
-            Timestamp createdDate = rs.getTimestamp("Create_Date");
-            String createdBy = rs.getString("Created_By");
-             Timestamp lastUpdated = rs.getTimestamp("Last_Update");
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int customerId = rs.getInt("Customer_ID");
-            int userId = rs.getInt("User_ID");
-            int cId = rs.getInt("Contact_ID");
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            LocalDateTime startDate = (start != null) ? start.toLocalDateTime() : null;
-            LocalDateTime endDate = (end != null) ? end.toLocalDateTime() : null;
-            LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
-            LocalDateTime lastUpdateDateTime = (lastUpdated != null) ? lastUpdated.toLocalDateTime() : null;
-            Appointment appointment = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startDate, endDate, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy,customerId, userId, cId);
-            //System.out.println(appointment);
-            filteredAppointmentList.add(appointment);
-            //System.out.println(filteredAppointmentList.size());
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, contactId);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                int appointmentId = rs.getInt("Appointment_ID");
+                String appointmentTitle = rs.getString("Title");
+                String appointmentDescription = rs.getString("Description");
+                String appointmentLocation = dictionary.intern(rs.getString("Location"));
+                String appointmentType = dictionary.intern(rs.getString("Type"));
+                Timestamp start = rs.getTimestamp("Start");
+                Timestamp end = rs.getTimestamp("End");
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                String createdBy = dictionary.intern(rs.getString("Created_By"));
+                 Timestamp lastUpdated = rs.getTimestamp("Last_Update");
+                String lastUpdatedBy = dictionary.intern(rs.getString("Last_Updated_By"));
+                int customerId = rs.getInt("Customer_ID");
+                int userId = rs.getInt("User_ID");
+                int cId = rs.getInt("Contact_ID");
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+                LocalDateTime startDate = (start != null) ? start.toLocalDateTime() : null;
+                LocalDateTime endDate = (end != null) ? end.toLocalDateTime() : null;
+                LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
+                LocalDateTime lastUpdateDateTime = (lastUpdated != null) ? lastUpdated.toLocalDateTime() : null;
+                Appointment appointment = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startDate, endDate, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy,customerId, userId, cId);
+                //System.out.println(appointment);
+                filteredAppointmentList.add(appointment);
+                //System.out.println(filteredAppointmentList.size());
+            }
+            return filteredAppointmentList;
         }
-        return filteredAppointmentList;
     }
 
     /**
@@ -195,36 +341,154 @@ public abstract class DBAppointments {
     public static ObservableList<Appointment> selectByCustomerId(int customerId) throws SQLException {
         ObservableList<Appointment> filteredAppointmentList = FXCollections.observableArrayList();
         String sql = "select * from appointments where Customer_ID=?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, customerId);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()){
-            int appointmentId = rs.getInt("Appointment_ID");
-            String appointmentTitle = rs.getString("Title");
-            String appointmentDescription = rs.getString("Description");
-            String appointmentLocation = rs.getString("Location");
-            String appointmentType = rs.getString("Type");
-            Timestamp start = rs.getTimestamp("Start");
-            Timestamp end = rs.getTimestamp("End");
-            Timestamp createdDate = rs.getTimestamp("Create_Date");
-            String createdBy = rs.getString("Created_By");
-            Timestamp lastUpdated = rs.getTimestamp("Last_Update");
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int contactId = rs.getInt("Contact_ID");
-            int userId = rs.getInt("User_ID");
-            int cId = rs.getInt("Customer_ID");
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            LocalDateTime startDate = (start != null) ? start.toLocalDateTime() : null;
-            LocalDateTime endDate = (end != null) ? end.toLocalDateTime() : null;
-            LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
-            LocalDateTime lastUpdateDateTime = (lastUpdated != null) ? lastUpdated.toLocalDateTime() : null;
-            Appointment appointment = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startDate, endDate, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy,customerId, userId, cId);
-            //System.out.println(appointment);
-            filteredAppointmentList.add(appointment);
-            //System.out.println(filteredAppointmentList.size());
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                filteredAppointmentList.add(appointmentFromRow(rs));
+            }
+            return filteredAppointmentList;
+        }
+    }
+
+    /**
+     * Retrieves the appointments of a customer that overlap a time interval.
+     * Two appointments overlap when each one starts before the other ends; appointments that only touch,
+     * one ending exactly when the other starts, do not overlap.
+     *
+     * @param customerId The ID of the customer.
+     * @param start      The start of the interval.
+     * @param end        The end of the interval.
+     * @return An ObservableList of the conflicting appointments ordered by start.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<Appointment> selectOverlapping(int customerId, LocalDateTime start, LocalDateTime end) throws SQLException {
+        return selectOverlapping(customerId, start, end, 0);
+    }
+
+    /**
+     * Retrieves the appointments of a customer that overlap a time interval, leaving out one appointment.
+     * Used when an appointment is edited, so that it does not conflict with its own stored version.
+     *
+     * @param customerId           The ID of the customer.
+     * @param start                The start of the interval.
+     * @param end                  The end of the interval.
+     * @param excludeAppointmentId The ID of the appointment to leave out, or 0 to leave out none.
+     * @return An ObservableList of the conflicting appointments ordered by start.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<Appointment> selectOverlapping(int customerId, LocalDateTime start, LocalDateTime end,
+                                                                int excludeAppointmentId) throws SQLException {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        String sql = "select * from appointments where Customer_ID = ? and Start < ? and End > ? and Appointment_ID <> ?"
+                + " order by Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            ps.setTimestamp(2, Timestamp.valueOf(end));
+            ps.setTimestamp(3, Timestamp.valueOf(start));
+            ps.setInt(4, excludeAppointmentId);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                appointmentList.add(appointmentFromRow(rs));
+            }
+            return appointmentList;
+        }
+    }
+
+    /**
+     * Checks whether a customer has an appointment, or an occurrence of a series, that overlaps a time interval.
+     * Used when an appointment is saved: the stored appointments are read with the indexed interval query and the
+     * series are read again, so appointments other users saved since the in-memory indexes were loaded are seen too.
+     *
+     * @param customerId           The ID of the customer.
+     * @param start                The start of the interval.
+     * @param end                  The end of the interval.
+     * @param excludeAppointmentId The ID of an appointment to ignore, for example the one being moved, or 0 to ignore none.
+     * @return True if another appointment of the customer, or an occurrence of one, overlaps the interval.
+     * @throws SQLException If a database error occurs.
+     */
+    public static boolean hasOverlap(int customerId, LocalDateTime start, LocalDateTime end,
+                                     int excludeAppointmentId) throws SQLException {
+        RecurringAppointments.invalidate();
+        return !selectOverlapping(customerId, start, end, excludeAppointmentId).isEmpty()
+                || RecurringAppointments.hasOverlap(customerId, start, end, excludeAppointmentId);
+    }
+
+    /**
+     * Checks against the database whether any occurrence of a new or changed recurring appointment would overlap
+     * another appointment of its customer. Occurrences are checked up to the last date of the rule, or for a year
+     * if it has none. The stored appointments of the whole span are read with one interval query.
+     *
+     * @param customerId           The ID of the customer.
+     * @param start                The start of the first occurrence.
+     * @param end                  The end of the first occurrence.
+     * @param rule                 The rule of the series.
+     * @param excludeAppointmentId The ID of the series itself when it is being changed, or 0 for a new one.
+     * @return True if an occurrence overlaps another appointment.
+     * @throws SQLException If a database error occurs.
+     */
+    public static boolean hasSeriesOverlap(int customerId, LocalDateTime start, LocalDateTime end,
+                                           RecurrenceRule rule, int excludeAppointmentId) throws SQLException {
+        Duration length = Duration.between(start, end);
+        LocalDateTime horizon = (rule.getUntil() != null) ? rule.getUntil().plusDays(1).atStartOfDay() : start.plusYears(1);
+        List<LocalDateTime> starts = rule.startsBetween(start, length, start, horizon);
+        if (starts.isEmpty()) {
+            return false;
+        }
+        // An occurrence overlaps a stored appointment when it starts after the appointment's start minus the length
+        // and before its end; the starts are in order, so the first candidate is found with a binary search
+        for (Appointment stored : selectOverlapping(customerId, starts.get(0), starts.get(starts.size() - 1).plus(length),
+                excludeAppointmentId)) {
+            LocalDateTime after = stored.getStart().minus(length);
+            int index = Collections.binarySearch(starts, after);
+            index = (index >= 0) ? index + 1 : -index - 1;
+            if (index < starts.size() && starts.get(index).isBefore(stored.getEnd())) {
+                return true;
+            }
+        }
+        RecurringAppointments.invalidate();
+        for (LocalDateTime occurrence : starts) {
+            if (RecurringAppointments.hasOverlap(customerId, occurrence, occurrence.plus(length), excludeAppointmentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a customer has any appointments. The database stops at the first match.
+     *
+     * @param customerId The ID of the customer.
+     * @return True if at least one appointment belongs to the customer.
+     * @throws SQLException If a database error occurs.
+     */
+    public static boolean existsForCustomer(int customerId) throws SQLException {
+        String sql = "select exists(select 1 from appointments where Customer_ID = ?)";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * Counts the appointments of a customer.
+     *
+     * @param customerId The ID of the customer.
+     * @return The number of appointments that belong to the customer.
+     * @throws SQLException If a database error occurs.
+     */
+    public static int countByCustomerId(int customerId) throws SQLException {
+        String sql = "select count(*) from appointments where Customer_ID = ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
         }
-        return filteredAppointmentList;
     }
 
     /**
@@ -235,37 +499,36 @@ public abstract class DBAppointments {
      * @throws SQLException If a database error occurs.
      */
     public static Contact getContactByName(String contactName) throws SQLException {
-        Contact contact = null;
-        ObservableList<Contact> contacts = DBContacts.select();
-        for(Contact c: contacts){
-            if(c.getContactName().equals(contactName)){
-                contact = c;
-            }
-        }
-        return contact;
+        return ReferenceDataCache.getContactByName(contactName);
     }
 
     /**
-     * Retrieves an appointment list by user ID.
+     * Retrieves the appointments of a user whose start falls in a half-open range, using the index on User_ID and Start.
      *
      * @param userId The ID of the user.
-     * @return The list of appointments with that user ID.
+     * @param from   The inclusive lower bound of the start.
+     * @param to     The exclusive upper bound of the start.
+     * @return An ObservableList of Appointment objects ordered by start.
      * @throws SQLException If a database error occurs.
      */
-    public static ObservableList<Appointment> getAppointmentsByUserId(int userId) throws SQLException {
-
-        ObservableList<Appointment> appointments = DBAppointments.select();
-        ObservableList<Appointment> filteredAppointments = FXCollections.observableArrayList();
-        for(Appointment app: appointments){
-            if(app.getUserId()==userId){
-                filteredAppointments.add(app);
+    public static ObservableList<Appointment> selectByUserAndStartRange(int userId, LocalDateTime from, LocalDateTime to) throws SQLException {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        String sql = "select * from appointments where User_ID = ? and Start >= ? and Start < ? order by Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setTimestamp(2, Timestamp.valueOf(from));
+            ps.setTimestamp(3, Timestamp.valueOf(to));
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                appointmentList.add(appointmentFromRow(rs));
             }
+            return appointmentList;
         }
-        return filteredAppointments;
     }
 
     /**
-     * Retrieves a list of appointments for a specific month.
+     * Retrieves a list of appointments for a specific month of the current year.
      *
      * @param selectedMonth The selected month (e.g., "JANUARY").
      * @return An ObservableList of Appointment objects for the selected month.
@@ -274,32 +537,312 @@ public abstract class DBAppointments {
     public static ObservableList<Appointment> getAppointmentsByMonth(String selectedMonth) throws SQLException {
         // Mapping the selected month to its corresponding Month enum
         Month month = Month.valueOf(selectedMonth.toUpperCase());
+        return getAppointmentsByMonth(Year.now().getValue(), month, null);
+    }
+
+    /**
+     * Retrieves a list of appointments starting in a specific month, optionally of a single type.
+     * The month bounds the stored start, the user's wall time, and the query uses the index on Start.
+     *
+     * @param year  The year of the month.
+     * @param month The month.
+     * @param type  The appointment type to match, or null for every type.
+     * @return An ObservableList of Appointment objects for the selected month.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<Appointment> getAppointmentsByMonth(int year, Month month, String type) throws SQLException {
+        // Start holds the user's wall time, so the month bounds are used as they are
+        LocalDateTime startOfMonth = YearMonth.of(year, month).atDay(1).atStartOfDay();
+        LocalDateTime startOfNextMonth = startOfMonth.plusMonths(1);
+
+        return selectByStartRange(startOfMonth, startOfNextMonth, type);
+    }
+
+    /**
+     * Reads the appointments whose start falls in a half-open range straight into the columns of a store,
+     * without building an Appointment object for each row.
+     *
+     * @param from  The inclusive lower bound of the start.
+     * @param to    The exclusive upper bound of the start.
+     * @param store The store to append the rows to.
+     * @return The row numbers of the appended appointments, ordered by start.
+     * @throws SQLException If a database error occurs.
+     */
+    public static int[] selectColumns(LocalDateTime from, LocalDateTime to, AppointmentStore store) throws SQLException {
+        String sql = "select * from appointments where Start >= ? and Start < ? order by Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            ResultSet rs = ps.executeQuery();
+            int[] rows = new int[16];
+            int count = 0;
+            while (rs.next()) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = store.add(
+                        rs.getInt("Appointment_ID"),
+                        rs.getString("Title"),
+                        rs.getString("Description"),
+                        dictionary.intern(rs.getString("Location")),
+                        dictionary.intern(rs.getString("Type")),
+                        epochSeconds(rs.getTimestamp("Start")),
+                        epochSeconds(rs.getTimestamp("End")),
+                        epochSeconds(rs.getTimestamp("Create_Date")),
+                        dictionary.intern(rs.getString("Created_By")),
+                        epochSeconds(rs.getTimestamp("Last_Update")),
+                        dictionary.intern(rs.getString("Last_Updated_By")),
+                        rs.getInt("Customer_ID"),
+                        rs.getInt("User_ID"),
+                        rs.getInt("Contact_ID"));
+            }
+            return Arrays.copyOf(rows, count);
+        }
+    }
+
+    /**
+     * Retrieves the appointments whose start falls in a half-open range, optionally of a single type.
+     *
+     * @param from The inclusive lower bound of the start.
+     * @param to   The exclusive upper bound of the start.
+     * @param type The appointment type to match, or null for every type.
+     * @return An ObservableList of Appointment objects ordered by start.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<Appointment> selectByStartRange(LocalDateTime from, LocalDateTime to, String type) throws SQLException {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        String sql = "select * from appointments where Start >= ? and Start < ?"
+                + (type != null ? " and Type = ?" : "")
+                + " order by Start, Appointment_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            if (type != null) {
+                ps.setString(3, type);
+            }
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                appointmentList.add(appointmentFromRow(rs));
+            }
+            return appointmentList;
+        }
+    }
+
+    /**
+     * Retrieves one page of appointments, optionally limited to a range of start times.
+     * Pages are read with a keyset: the next page starts right after the last appointment of the previous one,
+     * ordered by the sort column and then by Appointment_ID, so the cost of a page does not grow with its position.
+     *
+     * @param from         The inclusive lower bound of the start, or null for no lower bound.
+     * @param to           The exclusive upper bound of the start, or null for no upper bound.
+     * @param after        The last appointment of the previous page, or null for the first page.
+     * @param sortProperty The Appointment property to sort by, for example "start". Unknown properties sort by start.
+     * @param descending   True to sort in descending order.
+     * @param pageSize     The maximum number of appointments to return.
+     * @return An ObservableList with the appointments of the page.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<Appointment> selectPage(LocalDateTime from, LocalDateTime to, Appointment after,
+                                                         String sortProperty, boolean descending, int pageSize) throws SQLException {
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        String sortColumn = sortColumns.getOrDefault(sortProperty, "Start");
+        String direction = descending ? " desc" : "";
 
-        // Getting the user's time zone
-        ZoneId userTimeZone = ZoneId.systemDefault();
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        if (from != null) {
+            conditions.add("Start >= ?");
+            parameters.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("Start < ?");
+            parameters.add(Timestamp.valueOf(to));
+        }
+        if (after != null) {
+            if (sortColumn.equals("Appointment_ID")) {
+                conditions.add("Appointment_ID" + (descending ? " < ?" : " > ?"));
+                parameters.add(after.getId());
+            } else {
+                conditions.add(keysetCondition(sortColumn, "Appointment_ID", sortValue(after, sortColumn), after.getId(),
+                        descending, parameters));
+            }
+        }
 
-        // Getting the current date in the user's time zone
-        ZonedDateTime userNow = ZonedDateTime.now(userTimeZone);
+        String sql = "select * from appointments"
+                + (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions))
+                + " order by " + sortColumn + direction + ", Appointment_ID" + direction + " limit ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Object parameter : parameters) {
+                ps.setObject(index++, parameter);
+            }
+            ps.setInt(index, pageSize);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                appointmentList.add(appointmentFromRow(rs));
+            }
+            return appointmentList;
+        }
+    }
 
-        // Getting the first and last dates of the selected month in the user's time zone
-        ZonedDateTime firstDayOfMonth = userNow.withMonth(month.getValue()).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-        ZonedDateTime lastDayOfMonth = firstDayOfMonth.plusMonths(1).minusSeconds(1);
+    /**
+     * Retrieves what changed in the appointments since a point in time: the appointments inserted or updated since
+     * then that start in a window, and the IDs of the appointments deleted since then.
+     * With occurrences and a window, the later occurrences in the window of every changed recurring appointment are returned too,
+     * for tables that show them.
+     *
+     * @param from        The inclusive lower bound of the start, or null for no lower bound.
+     * @param to          The exclusive upper bound of the start, or null for no upper bound.
+     * @param since       The point in time, compared inclusively with Last_Update so no change is missed.
+     * @param occurrences True to include the occurrences of changed recurring appointments.
+     * @return The changes, or null if they cannot all be known any more and the appointments must be read again.
+     * @throws SQLException If a database error occurs.
+     */
+    public static TableDelta<Appointment> selectChangedSince(LocalDateTime from, LocalDateTime to, LocalDateTime since,
+                                                             boolean occurrences) throws SQLException {
+        Set<Integer> deletedIds = DBTombstones.selectDeletedSince("appointments", since);
+        if (deletedIds == null) {
+            return null;
+        }
+        List<Appointment> changed = new ArrayList<>();
+        String sql = "select * from appointments where Last_Update >= ?"
+                + (from != null ? " and Start >= ?" : "")
+                + (to != null ? " and Start < ?" : "");
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            int index = 1;
+            ps.setTimestamp(index++, Timestamp.valueOf(since));
+            if (from != null) {
+                ps.setTimestamp(index++, Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                ps.setTimestamp(index, Timestamp.valueOf(to));
+            }
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                changed.add(appointmentFromRow(rs));
+            }
+        }
+        if (occurrences && from != null && to != null && !changed.isEmpty()) {
+            Set<Integer> changedIds = new HashSet<>();
+            for (Appointment appointment : changed) {
+                changedIds.add(appointment.getId());
+            }
+            changed.addAll(RecurringAppointments.occurrencesOf(changedIds, from, to));
+        }
+        return new TableDelta<>(changed, deletedIds);
+    }
 
-        // Converting start and end times to UTC for querying
-        LocalDateTime startOfMonthUTC = firstDayOfMonth.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
-        LocalDateTime endOfMonthUTC = lastDayOfMonth.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    /**
+     * Gets the order of appointment pages as a comparator, so changed appointments can be put in their place among
+     * the appointments already loaded. Text is compared ignoring case, like the database collation.
+     *
+     * @param sortProperty The Appointment property to sort by, as for {@link #selectPage}.
+     * @param descending   True for descending order.
+     * @return The comparator, with the same tie break on the ID as the query.
+     */
+    public static Comparator<Appointment> comparator(String sortProperty, boolean descending) {
+        Comparator<String> textOrder = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+        Comparator<Appointment> order;
+        switch (sortColumns.getOrDefault(sortProperty, "Start")) {
+            case "Appointment_ID": order = Comparator.comparingInt(Appointment::getId); break;
+            case "Title": order = Comparator.comparing(Appointment::getTitle, textOrder); break;
+            case "Description": order = Comparator.comparing(Appointment::getDescription, textOrder); break;
+            case "Location": order = Comparator.comparing(Appointment::getLocation, textOrder); break;
+            case "Type": order = Comparator.comparing(Appointment::getType, textOrder); break;
+            case "End": order = Comparator.comparing(Appointment::getEnd, Comparator.nullsFirst(Comparator.naturalOrder())); break;
+            case "Customer_ID": order = Comparator.comparingInt(Appointment::getCustomerId); break;
+            case "User_ID": order = Comparator.comparingInt(Appointment::getUserId); break;
+            case "Contact_ID": order = Comparator.comparingInt(Appointment::getContactId); break;
+            default: order = Comparator.comparing(Appointment::getStart, Comparator.nullsFirst(Comparator.naturalOrder())); break;
+        }
+        order = order.thenComparingInt(Appointment::getId);
+        return descending ? order.reversed() : order;
+    }
 
-        // Fetching appointments that match the selected month
-        ObservableList<Appointment> matchingAppointments = select()
-                .stream()
-                .filter(appointment ->
-                        appointment.getStart().isAfter(startOfMonthUTC) &&
-                                appointment.getStart().isBefore(endOfMonthUTC))
-                .collect(Collectors.collectingAndThen(
-                        Collectors.toList(),
-                        FXCollections::observableArrayList));
+    /**
+     * Builds the condition that selects the rows after the last row of a page, in the order of a sort column and
+     * then the ID, and adds its parameters. NULL sorts before every value, as in MySQL, so the condition has its own
+     * branches for NULL instead of comparing with it, which would never be true and end the paging.
+     *
+     * @param sortColumn The sort column.
+     * @param idColumn   The ID column.
+     * @param lastValue  The value of the last row in the sort column, or null.
+     * @param lastId     The ID of the last row.
+     * @param descending True for descending order.
+     * @param parameters The parameters of the query, added to in order.
+     * @return The condition.
+     */
+    private static String keysetCondition(String sortColumn, String idColumn, Object lastValue, int lastId,
+                                          boolean descending, List<Object> parameters) {
+        String comparison = descending ? " < ?" : " > ?";
+        if (lastValue == null) {
+            parameters.add(lastId);
+            return "((" + sortColumn + " is null and " + idColumn + comparison + ")"
+                    + (descending ? ")" : " or " + sortColumn + " is not null)");
+        }
+        parameters.add(lastValue);
+        parameters.add(lastValue);
+        parameters.add(lastId);
+        return "(" + sortColumn + comparison + " or (" + sortColumn + " = ? and " + idColumn + comparison + ")"
+                + (descending ? " or " + sortColumn + " is null)" : ")");
+    }
 
-        return matchingAppointments;
+    /**
+     * Gets the value of an appointment in a sort column, in the form the JDBC driver expects.
+     *
+     * @param appointment The appointment.
+     * @param sortColumn  The column name.
+     * @return The value of the column for the appointment.
+     */
+    private static Object sortValue(Appointment appointment, String sortColumn) {
+        switch (sortColumn) {
+            case "Title": return appointment.getTitle();
+            case "Description": return appointment.getDescription();
+            case "Location": return appointment.getLocation();
+            case "Type": return appointment.getType();
+            case "End": return Timestamp.valueOf(appointment.getEnd());
+            case "Customer_ID": return appointment.getCustomerId();
+            case "User_ID": return appointment.getUserId();
+            case "Contact_ID": return appointment.getContactId();
+            default: return Timestamp.valueOf(appointment.getStart());
+        }
+    }
+
+    private static long epochSeconds(Timestamp timestamp) {
+        return AppointmentStore.toSeconds(timestamp != null ? timestamp.toLocalDateTime() : null);
+    }
+
+    /**
+     * Builds an Appointment from the current row of a result set over the appointments table.
+     *
+     * @param rs The result set, positioned on a row.
+     * @return The Appointment for that row.
+     * @throws SQLException If a database error occurs.
+     */
+    static Appointment appointmentFromRow(ResultSet rs) throws SQLException {
+        Timestamp start = rs.getTimestamp("Start");
+        Timestamp end = rs.getTimestamp("End");
+        Timestamp createdDate = rs.getTimestamp("Create_Date");
+        Timestamp lastUpdated = rs.getTimestamp("Last_Update");
+        return new Appointment(
+                rs.getInt("Appointment_ID"),
+                rs.getString("Title"),
+                rs.getString("Description"),
+                dictionary.intern(rs.getString("Location")),
+                dictionary.intern(rs.getString("Type")),
+                (start != null) ? start.toLocalDateTime() : null,
+                (end != null) ? end.toLocalDateTime() : null,
+                (createdDate != null) ? createdDate.toLocalDateTime() : null,
+                dictionary.intern(rs.getString("Created_By")),
+                (lastUpdated != null) ? lastUpdated.toLocalDateTime() : null,
+                dictionary.intern(rs.getString("Last_Updated_By")),
+                rs.getInt("Customer_ID"),
+                rs.getInt("User_ID"),
+                rs.getInt("Contact_ID"));
     }
 
 }
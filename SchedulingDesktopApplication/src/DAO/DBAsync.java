@@ -0,0 +1,142 @@
+package DAO;
+
+import javafx.application.Platform;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The DBAsync class runs DAO calls off the JavaFX Application Thread and hands their results back to it.
+ * Queries run on virtual threads when the Java runtime supports them, and on daemon worker threads otherwise.
+ * Each call returns a CompletableFuture; cancelling it stops a query that has not started yet, interrupts one
+ * that is running, and makes sure its result is never delivered to the user interface.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class DBAsync {
+
+    /**
+     * A DAO call that returns a value and may throw an SQLException.
+     *
+     * @param <T> The type of the value returned by the call.
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        /**
+         * Runs the DAO call.
+         *
+         * @return The result of the call.
+         * @throws SQLException If a database error occurs.
+         */
+        T run() throws SQLException;
+    }
+
+    private static final ExecutorService executor = createExecutor();
+
+    /**
+     * Creates the executor the queries run on. Virtual threads are used when available (Java 21 and later);
+     * the project targets Java 17, where a cached pool of daemon threads is used instead.
+     *
+     * @return The executor for DAO calls.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method virtualExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "db-worker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Runs a DAO call in the background.
+     *
+     * @param query The DAO call to run.
+     * @param <T>   The type of the value returned by the call.
+     * @return A future completed with the result of the call, or exceptionally with its error.
+     */
+    public static <T> CompletableFuture<T> supply(Query<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(query.run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs a DAO call in the background and passes its result to a handler on the JavaFX Application Thread.
+     * Errors are printed to the console.
+     *
+     * @param query     The DAO call to run.
+     * @param onSuccess The handler that receives the result on the JavaFX Application Thread.
+     * @param <T>       The type of the value returned by the call.
+     * @return A future that completes once the handler has run. Cancel it when the result is no longer needed.
+     */
+    public static <T> CompletableFuture<Void> load(Query<T> query, Consumer<? super T> onSuccess) {
+        return load(query, onSuccess, Throwable::printStackTrace);
+    }
+
+    /**
+     * Runs a DAO call in the background and passes its result or its error to a handler on the
+     * JavaFX Application Thread.
+     *
+     * @param query     The DAO call to run.
+     * @param onSuccess The handler that receives the result on the JavaFX Application Thread.
+     * @param onError   The handler that receives the error on the JavaFX Application Thread.
+     * @param <T>       The type of the value returned by the call.
+     * @return A future that completes once a handler has run. Cancel it when the result is no longer needed.
+     */
+    public static <T> CompletableFuture<Void> load(Query<T> query, Consumer<? super T> onSuccess,
+                                                   Consumer<Throwable> onError) {
+        CompletableFuture<T> source = supply(query);
+        CompletableFuture<Void> delivered = new CompletableFuture<>();
+        delivered.whenComplete((value, error) -> {
+            if (delivered.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        source.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (delivered.isDone()) {
+                return;
+            }
+            try {
+                if (error == null) {
+                    onSuccess.accept(value);
+                } else {
+                    onError.accept(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+                delivered.complete(null);
+            } catch (Throwable e) {
+                delivered.completeExceptionally(e);
+                e.printStackTrace();
+            }
+        }));
+        return delivered;
+    }
+}
@@ -5,6 +5,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Contact;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -26,67 +27,58 @@ public abstract class DBContacts {
     public static ObservableList<Contact> select() throws SQLException {
         ObservableList<Contact> contactList = FXCollections.observableArrayList();
         String sql = "select * from contacts";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
 
-        while(rs.next()){
-            int contactId = rs.getInt("Contact_ID");
-            String contactName = rs.getString("Contact_Name");
-            String contactEmail = rs.getString("Email");
-            Contact contact = new Contact(contactId, contactName, contactEmail);
-            contactList.add(contact);
+            while(rs.next()){
+                int contactId = rs.getInt("Contact_ID");
+                String contactName = rs.getString("Contact_Name");
+                String contactEmail = rs.getString("Email");
+                Contact contact = new Contact(contactId, contactName, contactEmail);
+                contactList.add(contact);
+            }
+            return contactList;
         }
-        return contactList;
     }
 
     /**
-     * Retrieves the contact associated with a given contact ID.
+     * Retrieves the contact associated with a given contact ID from the reference data cache.
      *
      * @param contactId The ID of the contact to retrieve the name for.
      * @return The Contact object containing the contact name, or null if not found.
      * @throws SQLException If an SQL exception occurs while accessing the database.
      */
     public static Contact getContactById(int contactId) throws SQLException {
-         Contact contact = null;
-        ObservableList<Contact> contacts = DBContacts.select();
-        for( Contact c: contacts){
-            if(c.getContactId() ==contactId){
-                contact = c;
-            }
-        }
-        return contact;
+        return ReferenceDataCache.getContact(contactId);
     }
 
     /**
-     * Retrieves the contact ID associated with a given contact name.
+     * Retrieves the contact ID associated with a given contact name from the reference data cache.
      *
      * @param contactName The name of the contact to retrieve the ID for.
      * @return The contact ID, or -1 if the contact name is not found.
      * @throws SQLException If an SQL exception occurs while accessing the database.
      */
     public static int getContactId(String contactName) throws SQLException {
-        int id = -1;
-        ObservableList<Contact> contacts = select();
-        for(Contact c: contacts){
-            if(c.getContactName().equals(contactName)){
-                id = c.getContactId();
-                break;
-            }
-        }
-        return id;
+        Contact contact = ReferenceDataCache.getContactByName(contactName);
+        return (contact != null) ? contact.getContactId() : -1;
     }
 
     public int insert() {
+        ReferenceDataCache.invalidate();
         return 0;
     }
 
 
     public int update() {
+        ReferenceDataCache.invalidate();
         return 0;
     }
 
 
     public int delete() {
+        ReferenceDataCache.invalidate();
         return 0;
     }
 }
@@ -5,6 +5,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Country;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -26,10 +27,13 @@ public abstract class DBCountries {
      */
     public static int insert(String countryName) throws SQLException {
         String sql = "insert into countries (Country) values(?)";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setString(1, countryName);
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, countryName);
+            int rowsAffected = ps.executeUpdate();
+            ReferenceDataCache.invalidate();
+            return rowsAffected;
+        }
     }
 
     /**
@@ -42,11 +46,14 @@ public abstract class DBCountries {
      */
     public static int update(int countryId, String countryName) throws SQLException {
         String sql = "update countries set Country = ? where Country_ID = ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setString(1, countryName);
-        ps.setInt(2, countryId);
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, countryName);
+            ps.setInt(2, countryId);
+            int rowsAffected = ps.executeUpdate();
+            ReferenceDataCache.invalidate();
+            return rowsAffected;
+        }
     }
 
     /**
@@ -58,10 +65,13 @@ public abstract class DBCountries {
      */
     public static int delete(int countryId) throws SQLException {
         String sql = "delete from countries where Country_ID = ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, countryId);
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, countryId);
+            int rowsAffected = ps.executeUpdate();
+            ReferenceDataCache.invalidate();
+            return rowsAffected;
+        }
     }
 
     /**
@@ -73,16 +83,18 @@ public abstract class DBCountries {
     public static ObservableList<Country> select() throws SQLException {
         ObservableList<Country> countryList = FXCollections.observableArrayList();
         String sql = "select * from countries";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
 
-        while(rs.next()){
-            int countryId = rs.getInt("Country_ID");
-              String countryName = rs.getString("Country");
-            Country country = new Country(countryId, countryName);
-            countryList.add(country);
+            while(rs.next()){
+                int countryId = rs.getInt("Country_ID");
+                  String countryName = rs.getString("Country");
+                Country country = new Country(countryId, countryName);
+                countryList.add(country);
+            }
+            return countryList;
         }
-        return countryList;
     }
 
     /**
@@ -95,34 +107,29 @@ public abstract class DBCountries {
     public static ObservableList<Country> select(int countryId) throws SQLException {
         ObservableList<Country> filteredCountryList = FXCollections.observableArrayList();
         String sql = "select * from countries where Country_ID=?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, countryId);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, countryId);
+            ResultSet rs = ps.executeQuery();
 
-        while(rs.next()){
-            int country_id = rs.getInt("Country_ID");
-            String countryName = rs.getString("Country");
-            Country country = new Country(countryId, countryName);
-            filteredCountryList.add(country);
+            while(rs.next()){
+                int country_id = rs.getInt("Country_ID");
+                String countryName = rs.getString("Country");
+                Country country = new Country(countryId, countryName);
+                filteredCountryList.add(country);
+            }
+            return filteredCountryList;
         }
-        return filteredCountryList;
     }
 
     /**
-     * Retrieves a specific country from the database by its ID.
+     * Retrieves a specific country by its ID from the reference data cache.
      *
      * @param countryId The ID of the country to retrieve.
      * @return The Country object with the specified ID, or null if not found.
      * @throws SQLException If an SQL exception occurs while accessing the database.
      */
     public static Country getCountry(int countryId) throws SQLException {
-            Country country = null;
-            ObservableList<Country> countries = select();
-            for(Country c: countries){
-                if(c.getCountryId()==countryId){
-                    country = c;
-                }
-            }
-            return country;
+            return ReferenceDataCache.getCountry(countryId);
     }
 }
@@ -1,15 +1,25 @@
 package DAO;
 
 import helper.JDBC;
+import helper.StringDictionary;
+import helper.TableDelta;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Customer;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -21,31 +31,107 @@ import java.time.LocalDateTime;
 public abstract class DBCustomers {
 
     /**
-     * Inserts a new customer into the database.
+     * Gives the repeated values in the audit columns of every customer row one shared instance.
+     */
+    private static final StringDictionary dictionary = StringDictionary.shared;
+
+    /**
+     * The columns customer pages can be sorted by, keyed by the Customer property shown in the table.
+     */
+    private static final Map<String, String> sortColumns = Map.of(
+            "customerId", "Customer_ID",
+            "customerName", "Customer_Name",
+            "address", "Address",
+            "postalCode", "Postal_Code",
+            "phone", "Phone",
+            "divisionId", "Division_ID");
+
+    /**
+     * Receives the changes made to customers through this class, after they have been written to the database.
+     * Every method does nothing by default, so a listener only implements the changes it cares about.
+     */
+    public interface ChangeListener {
+        /**
+         * Called after a customer has been inserted. Its ID is the one generated by the database.
+         *
+         * @param customer The inserted customer.
+         */
+        default void inserted(Customer customer) {}
+
+        /**
+         * Called after a customer has been updated.
+         *
+         * @param customer The customer with its new values.
+         */
+        default void updated(Customer customer) {}
+
+        /**
+         * Called after a customer has been deleted.
+         *
+         * @param customer The deleted customer.
+         */
+        default void deleted(Customer customer) {}
+    }
+
+    private static final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener for customer changes.
+     *
+     * @param listener The listener to add.
+     */
+    public static void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener for customer changes.
+     *
+     * @param listener The listener to remove.
+     */
+    public static void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Inserts a new customer into the database. Last_Update is set from the database clock, which the
+     * change queries of every client compare with.
+     * When the customer has no ID yet (0), the ID generated by the database is set on it.
      *
      * @param customer The Customer object to insert.
      * @return The number of rows affected by the insert operation.
      * @throws SQLException If an SQL exception occurs while accessing the database.
      */
     public static int insert(Customer customer) throws SQLException {
-        String sql = "insert into customers (Customer_ID, Customer_Name, Address, Postal_Code,Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) values(?,?,?,?,?,?,?,?,?,?)";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, customer.getCustomerId());
-        ps.setString(2, customer.getCustomerName());
-        ps.setString(3, customer.getAddress());
-        ps.setString(4, customer.getPostalCode());
-        ps.setString(5, customer.getPhone());
-        ps.setTimestamp(6, Timestamp.valueOf(customer.getCreatedDate()));
-        ps.setString(7, customer.getCreatedBy());
-        ps.setTimestamp(8, Timestamp.valueOf(customer.getLastUpdate()));
-        ps.setString(9, customer.getLastUpdatedBy());
-        ps.setInt(10, customer.getDivisionId());
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        String sql = "insert into customers (Customer_ID, Customer_Name, Address, Postal_Code,Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) values(?,?,?,?,?,?,?,now(),?,?)";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, customer.getCustomerId());
+            ps.setString(2, customer.getCustomerName());
+            ps.setString(3, customer.getAddress());
+            ps.setString(4, customer.getPostalCode());
+            ps.setString(5, customer.getPhone());
+            ps.setTimestamp(6, Timestamp.valueOf(customer.getCreatedDate()));
+            ps.setString(7, customer.getCreatedBy());
+            ps.setString(8, customer.getLastUpdatedBy());
+            ps.setInt(9, customer.getDivisionId());
+            int rowsAffected = ps.executeUpdate();
+            if (customer.getCustomerId() == 0) {
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        customer.setCustomerId(keys.getInt(1));
+                    }
+                }
+            }
+            for (ChangeListener listener : listeners) {
+                listener.inserted(customer);
+            }
+            return rowsAffected;
+        }
     }
 
     /**
-     * Updates an existing customer in the database.
+     * Updates an existing customer in the database. Last_Update is set from the database clock.
      *
      * @param customer The Customer object with updated information.
      * @return The number of rows affected by the update operation.
@@ -58,25 +144,29 @@ public abstract class DBCustomers {
                 "Address = ?, " +
                 "Postal_Code = ?, " +
                 "Phone = ?, " +
-                "Last_Update = ?, " +
+                "Last_Update = now(), " +
                 "Division_ID = ? " +
                 "WHERE Customer_ID = ?";
 
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setString(1, customer.getCustomerName());
-        ps.setString(2, customer.getAddress());
-        ps.setString(3, customer.getPostalCode());
-        ps.setString(4, customer.getPhone());
-        ps.setTimestamp(5, Timestamp.valueOf(customer.getLastUpdate()));
-        ps.setInt(6, customer.getDivisionId());
-        ps.setInt(7, customer.getCustomerId());
-
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, customer.getCustomerName());
+            ps.setString(2, customer.getAddress());
+            ps.setString(3, customer.getPostalCode());
+            ps.setString(4, customer.getPhone());
+            ps.setInt(5, customer.getDivisionId());
+            ps.setInt(6, customer.getCustomerId());
+
+            int rowsAffected = ps.executeUpdate();
+            for (ChangeListener listener : listeners) {
+                listener.updated(customer);
+            }
+            return rowsAffected;
+        }
     }
 
     /**
-     * Deletes a customer from the database.
+     * Deletes a customer from the database and records the delete in deleted_rows, in one transaction.
      *
      * @param customer The Customer object to delete.
      * @return The number of rows affected by the delete operation.
@@ -84,10 +174,60 @@ public abstract class DBCustomers {
      */
     public static int delete(Customer customer) throws SQLException {
         String sql = "delete from customers where Customer_ID = ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, customer.getCustomerId());
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setInt(1, customer.getCustomerId());
+                int rowsAffected = ps.executeUpdate();
+                DBTombstones.record(connection, "customers", customer.getCustomerId());
+                connection.commit();
+                for (ChangeListener listener : listeners) {
+                    listener.deleted(customer);
+                }
+                return rowsAffected;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Deletes a customer together with all of their appointments in one transaction, recording the deletes in
+     * deleted_rows. Either both deletes are committed or, if one of them fails, neither is.
+     *
+     * @param customer The Customer object to delete.
+     * @return The number of appointments deleted with the customer.
+     * @throws SQLException If an SQL exception occurs while accessing the database.
+     */
+    public static int deleteWithAppointments(Customer customer) throws SQLException {
+        String appointmentsSql = "delete from appointments where Customer_ID = ?";
+        String customerSql = "delete from customers where Customer_ID = ?";
+        try (Connection connection = JDBC.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement appointmentsPs = connection.prepareStatement(appointmentsSql);
+                 PreparedStatement customerPs = connection.prepareStatement(customerSql)) {
+                DBTombstones.recordAppointmentsOfCustomer(connection, customer.getCustomerId());
+                appointmentsPs.setInt(1, customer.getCustomerId());
+                int appointmentsDeleted = appointmentsPs.executeUpdate();
+                customerPs.setInt(1, customer.getCustomerId());
+                customerPs.executeUpdate();
+                DBTombstones.record(connection, "customers", customer.getCustomerId());
+                connection.commit();
+                DBAppointments.fireDeletedForCustomer(customer.getCustomerId());
+                for (ChangeListener listener : listeners) {
+                    listener.deleted(customer);
+                }
+                return appointmentsDeleted;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
     }
 
     /**
@@ -99,30 +239,185 @@ public abstract class DBCustomers {
     public static ObservableList<Customer> select() throws SQLException {
         ObservableList<Customer> customerList = FXCollections.observableArrayList();
         String sql = "select * from customers";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-
-        while(rs.next()){
-            int customerId = rs.getInt("Customer_ID");
-            String countryName = rs.getString("Customer_Name");
-            String address = rs.getString("Address");
-            String postalCode = rs.getString("Postal_Code");
-            String phone = rs.getString("Phone");
-            Timestamp createdDate = rs.getTimestamp("Create_Date");
-            String createdBy = rs.getString("Created_By");
-            Timestamp lastUpdate = rs.getTimestamp("Last_Update");
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int divisionId = rs.getInt("Division_ID");
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
-            LocalDateTime lastUpdateDateTime = (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null;
-
-            Customer customer = new Customer(customerId, countryName, address, postalCode, phone, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy, divisionId);
-            customerList.add(customer);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
+
+            while(rs.next()){
+                int customerId = rs.getInt("Customer_ID");
+                String countryName = rs.getString("Customer_Name");
+                String address = rs.getString("Address");
+                String postalCode = rs.getString("Postal_Code");
+                String phone = rs.getString("Phone");
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                String createdBy = dictionary.intern(rs.getString("Created_By"));
+                Timestamp lastUpdate = rs.getTimestamp("Last_Update");
+                String lastUpdatedBy = dictionary.intern(rs.getString("Last_Updated_By"));
+                int divisionId = rs.getInt("Division_ID");
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+                LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
+                LocalDateTime lastUpdateDateTime = (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null;
+
+                Customer customer = new Customer(customerId, countryName, address, postalCode, phone, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy, divisionId);
+                customerList.add(customer);
 
+            }
+            return customerList;
+        }
+    }
+
+    /**
+     * Retrieves one page of customers.
+     * Pages are read with a keyset: the next page starts right after the last customer of the previous one,
+     * ordered by the sort column and then by Customer_ID, so the cost of a page does not grow with its position.
+     *
+     * @param after        The last customer of the previous page, or null for the first page.
+     * @param sortProperty The Customer property to sort by, for example "customerName". Unknown properties sort by ID.
+     * @param descending   True to sort in descending order.
+     * @param pageSize     The maximum number of customers to return.
+     * @return An ObservableList with the customers of the page.
+     * @throws SQLException If an SQL exception occurs while accessing the database.
+     */
+    public static ObservableList<Customer> selectPage(Customer after, String sortProperty, boolean descending,
+                                                      int pageSize) throws SQLException {
+        ObservableList<Customer> customerList = FXCollections.observableArrayList();
+        String sortColumn = sortColumns.getOrDefault(sortProperty, "Customer_ID");
+        String direction = descending ? " desc" : "";
+
+        String keyset = "";
+        List<Object> parameters = new ArrayList<>();
+        if (after != null) {
+            if (sortColumn.equals("Customer_ID")) {
+                keyset = " where Customer_ID" + (descending ? " < ?" : " > ?");
+                parameters.add(after.getCustomerId());
+            } else {
+                keyset = " where " + keysetCondition(sortColumn, "Customer_ID", sortValue(after, sortColumn),
+                        after.getCustomerId(), descending, parameters);
+            }
+        }
+        String sql = "select * from customers" + keyset
+                + " order by " + sortColumn + direction + ", Customer_ID" + direction + " limit ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Object parameter : parameters) {
+                ps.setObject(index++, parameter);
+            }
+            ps.setInt(index, pageSize);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                Timestamp lastUpdate = rs.getTimestamp("Last_Update");
+                customerList.add(new Customer(rs.getInt("Customer_ID"), rs.getString("Customer_Name"),
+                        rs.getString("Address"), rs.getString("Postal_Code"), rs.getString("Phone"),
+                        (createdDate != null) ? createdDate.toLocalDateTime() : null, dictionary.intern(rs.getString("Created_By")),
+                        (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null, dictionary.intern(rs.getString("Last_Updated_By")),
+                        rs.getInt("Division_ID")));
+            }
+            return customerList;
+        }
+    }
+
+    /**
+     * Retrieves what changed in the customers since a point in time: the customers inserted or updated since then,
+     * and the IDs of the customers deleted since then.
+     *
+     * @param since The point in time, compared inclusively with Last_Update so no change is missed.
+     * @return The changes, or null if they cannot all be known any more and the customers must be read again.
+     * @throws SQLException If an SQL exception occurs while accessing the database.
+     */
+    public static TableDelta<Customer> selectChangedSince(LocalDateTime since) throws SQLException {
+        Set<Integer> deletedIds = DBTombstones.selectDeletedSince("customers", since);
+        if (deletedIds == null) {
+            return null;
+        }
+        List<Customer> changed = new ArrayList<>();
+        String sql = "select * from customers where Last_Update >= ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(since));
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                Timestamp lastUpdate = rs.getTimestamp("Last_Update");
+                changed.add(new Customer(rs.getInt("Customer_ID"), rs.getString("Customer_Name"),
+                        rs.getString("Address"), rs.getString("Postal_Code"), rs.getString("Phone"),
+                        (createdDate != null) ? createdDate.toLocalDateTime() : null, dictionary.intern(rs.getString("Created_By")),
+                        (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null, dictionary.intern(rs.getString("Last_Updated_By")),
+                        rs.getInt("Division_ID")));
+            }
+            return new TableDelta<>(changed, deletedIds);
+        }
+    }
+
+    /**
+     * Gets the order of customer pages as a comparator, so changed customers can be put in their place among
+     * the customers already loaded. Text is compared ignoring case, like the database collation.
+     *
+     * @param sortProperty The Customer property to sort by, as for {@link #selectPage}.
+     * @param descending   True for descending order.
+     * @return The comparator, with the same tie break on the ID as the query.
+     */
+    public static Comparator<Customer> comparator(String sortProperty, boolean descending) {
+        Comparator<String> textOrder = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+        Comparator<Customer> order;
+        switch (sortColumns.getOrDefault(sortProperty, "Customer_ID")) {
+            case "Customer_Name": order = Comparator.comparing(Customer::getCustomerName, textOrder); break;
+            case "Address": order = Comparator.comparing(Customer::getAddress, textOrder); break;
+            case "Postal_Code": order = Comparator.comparing(Customer::getPostalCode, textOrder); break;
+            case "Phone": order = Comparator.comparing(Customer::getPhone, textOrder); break;
+            case "Division_ID": order = Comparator.comparingInt(Customer::getDivisionId); break;
+            default: order = (a, b) -> 0; break;
+        }
+        order = order.thenComparingInt(Customer::getCustomerId);
+        return descending ? order.reversed() : order;
+    }
+
+    /**
+     * Builds the condition that selects the rows after the last row of a page, in the order of a sort column and
+     * then the ID, and adds its parameters. NULL sorts before every value, as in MySQL, so the condition has its own
+     * branches for NULL instead of comparing with it, which would never be true and end the paging.
+     *
+     * @param sortColumn The sort column.
+     * @param idColumn   The ID column.
+     * @param lastValue  The value of the last row in the sort column, or null.
+     * @param lastId     The ID of the last row.
+     * @param descending True for descending order.
+     * @param parameters The parameters of the query, added to in order.
+     * @return The condition.
+     */
+    private static String keysetCondition(String sortColumn, String idColumn, Object lastValue, int lastId,
+                                          boolean descending, List<Object> parameters) {
+        String comparison = descending ? " < ?" : " > ?";
+        if (lastValue == null) {
+            parameters.add(lastId);
+            return "((" + sortColumn + " is null and " + idColumn + comparison + ")"
+                    + (descending ? ")" : " or " + sortColumn + " is not null)");
+        }
+        parameters.add(lastValue);
+        parameters.add(lastValue);
+        parameters.add(lastId);
+        return "(" + sortColumn + comparison + " or (" + sortColumn + " = ? and " + idColumn + comparison + ")"
+                + (descending ? " or " + sortColumn + " is null)" : ")");
+    }
+
+    /**
+     * Gets the value of a customer in a sort column.
+     *
+     * @param customer   The customer.
+     * @param sortColumn The column name.
+     * @return The value of the column for the customer.
+     */
+    private static Object sortValue(Customer customer, String sortColumn) {
+        switch (sortColumn) {
+            case "Customer_Name": return customer.getCustomerName();
+            case "Address": return customer.getAddress();
+            case "Postal_Code": return customer.getPostalCode();
+            case "Phone": return customer.getPhone();
+            case "Division_ID": return customer.getDivisionId();
+            default: return customer.getCustomerId();
         }
-        return customerList;
     }
 
     /**
@@ -136,31 +431,33 @@ public abstract class DBCustomers {
 
         Customer selected = null;
         String sql = "select * from customers where Customer_ID=?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, customerId);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()){
-            int customerIdd = rs.getInt("Customer_ID");
-            String countryName = rs.getString("Customer_Name");
-            String address = rs.getString("Address");
-            String postalCode = rs.getString("Postal_Code");
-            String phone = rs.getString("Phone");
-            Timestamp createdDate = rs.getTimestamp("Create_Date");
-            String createdBy = rs.getString("Created_By");
-            Timestamp lastUpdate = rs.getTimestamp("Last_Update");
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            int divisionId = rs.getInt("Division_ID");
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
-            LocalDateTime lastUpdateDateTime = (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null;
-            Customer customer = new Customer(customerIdd, countryName, address, postalCode, phone, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy, divisionId);
-            System.out.println(customer);
-            //filteredCustomerList.add(customer);
-            //System.out.println(filteredCustomerList.size());
-            selected = customer;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                int customerIdd = rs.getInt("Customer_ID");
+                String countryName = rs.getString("Customer_Name");
+                String address = rs.getString("Address");
+                String postalCode = rs.getString("Postal_Code");
+                String phone = rs.getString("Phone");
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                String createdBy = dictionary.intern(rs.getString("Created_By"));
+                Timestamp lastUpdate = rs.getTimestamp("Last_Update");
+                String lastUpdatedBy = dictionary.intern(rs.getString("Last_Updated_By"));
+                int divisionId = rs.getInt("Division_ID");
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+                LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
+                LocalDateTime lastUpdateDateTime = (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null;
+                Customer customer = new Customer(customerIdd, countryName, address, postalCode, phone, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy, divisionId);
+                System.out.println(customer);
+                //filteredCustomerList.add(customer);
+                //System.out.println(filteredCustomerList.size());
+                selected = customer;
+            }
+            return selected;
         }
-        return selected;
     }
 
 
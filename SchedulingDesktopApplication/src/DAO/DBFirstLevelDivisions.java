@@ -5,6 +5,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.FirstLevelDivision;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -28,11 +29,14 @@ public abstract class DBFirstLevelDivisions {
      */
     public static int insert(String divisionName, int countryId) throws SQLException {
         String sql = "insert into first_level_divisions (Division, Country_ID) values (?, ?)";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setString(1, divisionName);
-        ps.setInt(2, countryId);
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, divisionName);
+            ps.setInt(2, countryId);
+            int rowsAffected = ps.executeUpdate();
+            ReferenceDataCache.invalidate();
+            return rowsAffected;
+        }
     }
 
     /**
@@ -46,12 +50,15 @@ public abstract class DBFirstLevelDivisions {
      */
     public static int update(int divisionId, String divisionName, int countryId) throws SQLException {
         String sql = "update first_level_divisions set Division = ?, Country_ID = ? where Division_ID = ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setString(1, divisionName);
-        ps.setInt(2, countryId);
-        ps.setInt(3, divisionId);
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, divisionName);
+            ps.setInt(2, countryId);
+            ps.setInt(3, divisionId);
+            int rowsAffected = ps.executeUpdate();
+            ReferenceDataCache.invalidate();
+            return rowsAffected;
+        }
     }
 
     /**
@@ -63,10 +70,13 @@ public abstract class DBFirstLevelDivisions {
      */
     public static int delete(int divisionId) throws SQLException {
         String sql = "delete from first_level_divisions where Division_ID = ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, divisionId);
-        int rowsAffected = ps.executeUpdate();
-        return rowsAffected;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, divisionId);
+            int rowsAffected = ps.executeUpdate();
+            ReferenceDataCache.invalidate();
+            return rowsAffected;
+        }
     }
 
     /**
@@ -78,20 +88,22 @@ public abstract class DBFirstLevelDivisions {
     public static ObservableList<FirstLevelDivision> select() throws SQLException {
         ObservableList<FirstLevelDivision> divisionList = FXCollections.observableArrayList();
         String sql = "select * from first_level_divisions";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()){
-            int divsionId = rs.getInt("Division_ID");
-            String countryName = rs.getString("Division");
-            int countryIdFK = rs.getInt("Country_ID");
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            FirstLevelDivision division = new FirstLevelDivision(divsionId, countryName, countryIdFK);
-           // System.out.println(division);
-            divisionList.add(division);
-           // System.out.println(divisionList.size());
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                int divsionId = rs.getInt("Division_ID");
+                String countryName = rs.getString("Division");
+                int countryIdFK = rs.getInt("Country_ID");
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+                FirstLevelDivision division = new FirstLevelDivision(divsionId, countryName, countryIdFK);
+               // System.out.println(division);
+                divisionList.add(division);
+               // System.out.println(divisionList.size());
+            }
+            return divisionList;
         }
-        return divisionList;
     }
 
     /**
@@ -104,21 +116,23 @@ public abstract class DBFirstLevelDivisions {
     public static ObservableList<FirstLevelDivision> select(int countryId) throws SQLException {
         ObservableList<FirstLevelDivision> filteredDivisionList = FXCollections.observableArrayList();
         String sql = "select * from first_level_divisions where Country_ID=?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setInt(1, countryId);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, countryId);
+            ResultSet rs = ps.executeQuery();
 
-        while(rs.next()){
-            int divisionId = rs.getInt("Division_ID");
-            String countryName = rs.getString("Division");
-            int countryIdFK = rs.getInt("Country_ID");
-            FirstLevelDivision division = new FirstLevelDivision(divisionId, countryName, countryIdFK);
-            //System.out.println(division);
-            filteredDivisionList.add(division);
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
+            while(rs.next()){
+                int divisionId = rs.getInt("Division_ID");
+                String countryName = rs.getString("Division");
+                int countryIdFK = rs.getInt("Country_ID");
+                FirstLevelDivision division = new FirstLevelDivision(divisionId, countryName, countryIdFK);
+                //System.out.println(division);
+                filteredDivisionList.add(division);
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+            }
+            return filteredDivisionList;
         }
-        return filteredDivisionList;
     }
 
     /**
@@ -129,32 +143,18 @@ public abstract class DBFirstLevelDivisions {
      * @throws SQLException If an SQL exception occurs while accessing the database.
      */
     public static int getCustomerCountryId(int divisionId) throws SQLException {
-        int countryId = -1;
-        ObservableList <FirstLevelDivision> allDivision = select();
-        for(FirstLevelDivision division: allDivision){
-            if(division.getDivisionId()==divisionId){
-                countryId = division.getCountryId();
-            }
-        }
-        return countryId;
+        FirstLevelDivision division = ReferenceDataCache.getDivision(divisionId);
+        return (division != null) ? division.getCountryId() : -1;
     }
 
     /**
-     * Retrieves a specific division from the database by its ID.
+     * Retrieves a specific division by its ID from the reference data cache.
      *
      * @param divisionId The ID of the division to retrieve.
      * @return The FirstLevelDivision object with the specified ID, or null if not found.
      * @throws SQLException If an SQL exception occurs while accessing the database.
      */
     public static FirstLevelDivision getDivision(int divisionId) throws SQLException {
-        FirstLevelDivision division = null;
-        ObservableList <FirstLevelDivision> allDivision = select();
-        for(FirstLevelDivision d: allDivision){
-            if(d.getDivisionId()==divisionId){
-                division = d;
-            }
-        }
-        return division;
-
+        return ReferenceDataCache.getDivision(divisionId);
     }
 }
@@ -0,0 +1,101 @@
+package DAO;
+
+import helper.JDBC;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The DBIndexes class makes sure the indexes the DAO queries rely on exist in the database.
+ * An index counts as present when an index of the table starts with all of its columns, in the same order,
+ * so a foreign key index on the first column alone does not stand in for a composite one. A unique index only
+ * counts as present when an index on exactly its columns is unique, since a non-unique one, or one on more
+ * columns, does not keep the values unique. Missing indexes are created at startup; if the database user is not
+ * allowed to create them, the queries still work, only slower, and a missing unique index is reported.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class DBIndexes {
+
+    /**
+     * The indexes to ensure, as table name, index name, indexed columns and, optionally, "unique".
+     */
+    private static final String[][] indexes = {
+            {"appointments", "appointments_start_idx", "Start"},
+            {"customers", "customers_name_idx", "Customer_Name"},
+            {"appointments", "appointments_customer_idx", "Customer_ID, Start"},
+            {"users", "users_name_idx", "User_Name", "unique"},
+            {"appointments", "appointments_user_idx", "User_ID, Start"},
+            {"appointments", "appointments_last_update_idx", "Last_Update"},
+            {"customers", "customers_last_update_idx", "Last_Update"},
+    };
+
+    /**
+     * Creates every index in the list that does not exist yet.
+     */
+    public static void ensureIndexes() {
+        for (String[] index : indexes) {
+            boolean unique = index.length > 3 && index[3].equals("unique");
+            try {
+                if (!exists(index[0], index[2], unique)) {
+                    create(index[0], index[1], index[2], unique);
+                    System.out.println("Created index " + index[1] + " on " + index[0] + ".");
+                }
+            } catch (SQLException e) {
+                System.out.println("Could not create index " + index[1] + ": " + e.getMessage());
+                if (unique) {
+                    System.out.println("Error: " + index[0] + "." + index[2] + " is not kept unique by the database.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether an index whose leading columns are the given ones exists on a table of the current schema,
+     * or, for a unique index, a unique index on exactly those columns.
+     *
+     * @param table   The table name.
+     * @param columns The comma separated indexed columns, in order.
+     * @param unique  True if the index must be unique.
+     * @return True if such an index exists.
+     * @throws SQLException If a database error occurs.
+     */
+    private static boolean exists(String table, String columns, boolean unique) throws SQLException {
+        String sql = "select group_concat(column_name order by seq_in_index separator ','), max(non_unique)"
+                + " from information_schema.statistics where table_schema = database() and table_name = ? group by index_name";
+        String wanted = columns.replace(" ", "").toLowerCase();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                String indexed = rs.getString(1).toLowerCase();
+                if (unique ? indexed.equals(wanted) && rs.getInt(2) == 0
+                        : indexed.equals(wanted) || indexed.startsWith(wanted + ",")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Creates an index. The names come from the constant list above, never from user input.
+     *
+     * @param table     The table name.
+     * @param indexName The index name.
+     * @param columns   The comma separated indexed columns.
+     * @param unique    True to create a unique index.
+     * @throws SQLException If a database error occurs.
+     */
+    private static void create(String table, String indexName, String columns, boolean unique) throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("create " + (unique ? "unique " : "") + "index " + indexName + " on " + table + " (" + columns + ")");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package DAO;
+
+import helper.JDBC;
+import model.Appointment;
+import model.RecurrenceRule;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The DBRecurrences class provides methods for interacting with the appointment_recurrences table, which holds
+ * the repeat rule of each recurring appointment. A rule belongs to one appointment row and is deleted with it.
+ * Exception dates are stored as a comma separated list of ISO dates.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class DBRecurrences {
+
+    /**
+     * Creates the appointment_recurrences table if it does not exist yet.
+     */
+    public static void ensureTable() {
+        String sql = "create table if not exists appointment_recurrences ("
+                + "Appointment_ID int primary key, "
+                + "Frequency varchar(10) not null, "
+                + "Interval_Count int not null default 1, "
+                + "Until_Date date null, "
+                + "Exceptions text null, "
+                + "foreign key (Appointment_ID) references appointments (Appointment_ID) on delete cascade)";
+        try (Connection connection = JDBC.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        } catch (SQLException e) {
+            System.out.println("Could not create table appointment_recurrences: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves every recurring appointment together with its rule.
+     *
+     * @return The appointments that hold the first occurrence of each series, mapped to their rules.
+     * @throws SQLException If a database error occurs.
+     */
+    public static Map<Appointment, RecurrenceRule> selectSeries() throws SQLException {
+        Map<Appointment, RecurrenceRule> series = new LinkedHashMap<>();
+        String sql = "select a.*, r.Frequency, r.Interval_Count, r.Until_Date, r.Exceptions "
+                + "from appointments a join appointment_recurrences r on r.Appointment_ID = a.Appointment_ID";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                Date until = rs.getDate("Until_Date");
+                RecurrenceRule rule = new RecurrenceRule(
+                        RecurrenceRule.Frequency.valueOf(rs.getString("Frequency")),
+                        rs.getInt("Interval_Count"),
+                        (until != null) ? until.toLocalDate() : null,
+                        parseExceptions(rs.getString("Exceptions")));
+                series.put(DBAppointments.appointmentFromRow(rs), rule);
+            }
+            return series;
+        }
+    }
+
+    /**
+     * Inserts the rule of a recurring appointment, or replaces the one it has.
+     *
+     * @param appointmentId The ID of the appointment that holds the first occurrence.
+     * @param rule          The rule.
+     * @return The number of rows affected.
+     * @throws SQLException If a database error occurs.
+     */
+    public static int save(int appointmentId, RecurrenceRule rule) throws SQLException {
+        String sql = "replace into appointment_recurrences (Appointment_ID, Frequency, Interval_Count, Until_Date, Exceptions) values(?,?,?,?,?)";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, appointmentId);
+            ps.setString(2, rule.getFrequency().name());
+            ps.setInt(3, rule.getInterval());
+            ps.setDate(4, (rule.getUntil() != null) ? Date.valueOf(rule.getUntil()) : null);
+            ps.setString(5, formatExceptions(rule.getExceptions()));
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the rule of an appointment, so it no longer repeats.
+     *
+     * @param appointmentId The ID of the appointment.
+     * @return The number of rows affected.
+     * @throws SQLException If a database error occurs.
+     */
+    public static int delete(int appointmentId) throws SQLException {
+        String sql = "delete from appointment_recurrences where Appointment_ID = ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, appointmentId);
+            return ps.executeUpdate();
+        }
+    }
+
+    private static Set<LocalDate> parseExceptions(String exceptions) {
+        Set<LocalDate> dates = new TreeSet<>();
+        if (exceptions != null) {
+            for (String date : exceptions.split(",")) {
+                if (!date.isBlank()) {
+                    dates.add(LocalDate.parse(date.trim()));
+                }
+            }
+        }
+        return dates;
+    }
+
+    private static String formatExceptions(Set<LocalDate> exceptions) {
+        if (exceptions.isEmpty()) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        for (LocalDate date : exceptions) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(date);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package DAO;
+
+import helper.JDBC;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.AppointmentCount;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Year;
+
+/**
+ * The DBReports class provides the aggregate queries behind the report screen.
+ * The counting is done by the database with GROUP BY, so only one small row per group is transferred.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class DBReports {
+
+    /**
+     * Counts the appointments of a year grouped by month and type.
+     *
+     * @param year The year to count, of the stored start.
+     * @return An ObservableList of counts ordered by month and type.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<AppointmentCount> countByMonthAndType(int year) throws SQLException {
+        return countByMonthAndType(year, false);
+    }
+
+    /**
+     * Counts the appointments of a year grouped by month and type, and optionally by contact.
+     * Start holds the user's wall time, the frame the appointment forms save in, so the month is taken from it directly.
+     *
+     * @param year      The year to count, of the stored start.
+     * @param byContact True to count each contact separately.
+     * @return An ObservableList of counts ordered by month, type and contact.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<AppointmentCount> countByMonthAndType(int year, boolean byContact) throws SQLException {
+        ObservableList<AppointmentCount> counts = FXCollections.observableArrayList();
+
+        LocalDateTime startOfYear = Year.of(year).atDay(1).atStartOfDay();
+        LocalDateTime startOfNextYear = startOfYear.plusYears(1);
+
+        String contactColumn = byContact ? ", Contact_ID" : "";
+        String sql = "select year(Start) as Year, month(Start) as Month, Type"
+                + contactColumn + ", count(*) as Total from appointments where Start >= ? and Start < ?"
+                + " group by Year, Month, Type" + contactColumn
+                + " order by Month, Type" + contactColumn;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(startOfYear));
+            ps.setTimestamp(2, Timestamp.valueOf(startOfNextYear));
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                int contactId = byContact ? rs.getInt("Contact_ID") : -1;
+                counts.add(new AppointmentCount(rs.getInt("Year"), rs.getInt("Month"), rs.getString("Type"),
+                        contactId, rs.getLong("Total")));
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Retrieves the distinct appointment types in use.
+     *
+     * @return An ObservableList of the appointment types in alphabetical order.
+     * @throws SQLException If a database error occurs.
+     */
+    public static ObservableList<String> selectTypes() throws SQLException {
+        ObservableList<String> types = FXCollections.observableArrayList();
+        String sql = "select distinct Type from appointments order by Type";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                types.add(rs.getString("Type"));
+            }
+            return types;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package DAO;
+
+import helper.JDBC;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The DBTombstones class keeps a record of deleted rows in the deleted_rows table, so a screen that has rows loaded
+ * can ask which of them are gone since it last looked instead of reading the whole table again. A row is recorded
+ * in the same transaction as its delete, with the time of the delete taken from the database clock, the one
+ * Last_Update is written with. Screens take their watermarks from {@link #selectServerTime()}, so clients with
+ * skewed clocks or in other time zones compare times from the same clock.
+ *
+ * Records older than {@link #RETENTION_DAYS} days are removed at startup. A screen that last looked before that
+ * cannot tell what was deleted and reads its rows again.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class DBTombstones {
+
+    /**
+     * The number of days deleted rows are remembered.
+     */
+    public static final int RETENTION_DAYS = 7;
+
+    /**
+     * Creates the deleted_rows table if it does not exist yet and removes the records past the retention period.
+     */
+    public static void ensureTable() {
+        String sql = "create table if not exists deleted_rows ("
+                + "Table_Name varchar(32) not null, "
+                + "Row_ID int not null, "
+                + "Deleted_At datetime not null, "
+                + "primary key (Table_Name, Row_ID), "
+                + "index deleted_rows_time_idx (Table_Name, Deleted_At))";
+        try (Connection connection = JDBC.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+            try (PreparedStatement ps = connection.prepareStatement("delete from deleted_rows where Deleted_At < now() - interval ? day")) {
+                ps.setInt(1, RETENTION_DAYS);
+                ps.executeUpdate();
+            }
+        } catch (SQLException e) {
+            System.out.println("Could not create table deleted_rows: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the delete of a row, on the connection and in the transaction of the delete itself.
+     *
+     * @param connection The connection the row is deleted on.
+     * @param table      The name of the table.
+     * @param rowId      The ID of the deleted row.
+     * @throws SQLException If a database error occurs.
+     */
+    static void record(Connection connection, String table, int rowId) throws SQLException {
+        String sql = "replace into deleted_rows (Table_Name, Row_ID, Deleted_At) values(?,?,now())";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setInt(2, rowId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Records the delete of every appointment of a customer. Must run before the appointments are deleted,
+     * on the connection and in the transaction of the delete.
+     *
+     * @param connection The connection the appointments are deleted on.
+     * @param customerId The ID of the customer.
+     * @throws SQLException If a database error occurs.
+     */
+    static void recordAppointmentsOfCustomer(Connection connection, int customerId) throws SQLException {
+        String sql = "replace into deleted_rows (Table_Name, Row_ID, Deleted_At) "
+                + "select 'appointments', Appointment_ID, now() from appointments where Customer_ID = ?";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Retrieves the IDs of the rows of a table deleted since a point in time.
+     *
+     * @param table The name of the table.
+     * @param since The point in time, inclusive, as read with {@link #selectServerTime()}.
+     * @return The IDs, or null if the point in time is past the retention period and the deletes are not all known.
+     * @throws SQLException If a database error occurs.
+     */
+    public static Set<Integer> selectDeletedSince(String table, LocalDateTime since) throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        String retainedSql = "select ? >= now() - interval ? day";
+        String sql = "select Row_ID from deleted_rows where Table_Name = ? and Deleted_At >= ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement retained = connection.prepareStatement(retainedSql);
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            retained.setTimestamp(1, Timestamp.valueOf(since));
+            retained.setInt(2, RETENTION_DAYS);
+            ResultSet retainedRs = retained.executeQuery();
+            if (!retainedRs.next() || !retainedRs.getBoolean(1)) {
+                return null;
+            }
+            ps.setString(1, table);
+            ps.setTimestamp(2, Timestamp.valueOf(since));
+            ResultSet rs = ps.executeQuery();
+            while(rs.next()){
+                ids.add(rs.getInt("Row_ID"));
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Reads the current time of the database clock, which Last_Update and Deleted_At are written with.
+     * A screen reads it before it reads its rows or their changes, and asks for the changes since then next time.
+     *
+     * @return The current time of the database.
+     * @throws SQLException If a database error occurs.
+     */
+    public static LocalDateTime selectServerTime() throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement("select now()")) {
+            ResultSet rs = ps.executeQuery();
+            rs.next();
+            return rs.getTimestamp(1).toLocalDateTime();
+        }
+    }
+}
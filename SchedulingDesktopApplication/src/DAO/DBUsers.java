@@ -5,6 +5,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.User;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -28,27 +29,53 @@ public abstract class DBUsers {
     public static ObservableList<User> select() throws SQLException {
         ObservableList<User> userList = FXCollections.observableArrayList();
         String sql = "select * from users";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ResultSet rs = ps.executeQuery();
 
-        while(rs.next()){
-            int userId = rs.getInt("User_ID");
-            String userName = rs.getString("User_Name");
-            String pass = rs.getString("Password");
+            while(rs.next()){
+                int userId = rs.getInt("User_ID");
+                String userName = rs.getString("User_Name");
+                String pass = rs.getString("Password");
+                Timestamp createdDate = rs.getTimestamp("Create_Date");
+                String createdBy = rs.getString("Created_By");
+                Timestamp lastUpdate = rs.getTimestamp("Last_Update");
+                String lastUpdatedBy = rs.getString("Last_Updated_By");
+                LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
+                LocalDateTime lastUpdateDateTime = (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null;
+    //        System.out.print(countryId + " | ");
+    //        System.out.print(countryName+"\n");
+                User user = new User(userId, userName, pass, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy);
+                //System.out.println(user);
+                userList.add(user);
+               // System.out.println(userList.size());
+            }
+            return userList;
+        }
+    }
+
+    /**
+     * Retrieves a user by their user name. The lookup uses the unique index on User_Name.
+     *
+     * @param userName The user name to look up.
+     * @return The User object with the specified user name, or null if not found.
+     * @throws SQLException If an SQL exception occurs while accessing the database.
+     */
+    public static User getUserByName(String userName) throws SQLException {
+        String sql = "select * from users where User_Name = ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, userName);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
             Timestamp createdDate = rs.getTimestamp("Create_Date");
-            String createdBy = rs.getString("Created_By");
             Timestamp lastUpdate = rs.getTimestamp("Last_Update");
-            String lastUpdatedBy = rs.getString("Last_Updated_By");
-            LocalDateTime createdDateTime = (createdDate != null) ? createdDate.toLocalDateTime() : null;
-            LocalDateTime lastUpdateDateTime = (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null;
-//        System.out.print(countryId + " | ");
-//        System.out.print(countryName+"\n");
-            User user = new User(userId, userName, pass, createdDateTime, createdBy, lastUpdateDateTime, lastUpdatedBy);
-            //System.out.println(user);
-            userList.add(user);
-           // System.out.println(userList.size());
+            return new User(rs.getInt("User_ID"), rs.getString("User_Name"), rs.getString("Password"),
+                    (createdDate != null) ? createdDate.toLocalDateTime() : null, rs.getString("Created_By"),
+                    (lastUpdate != null) ? lastUpdate.toLocalDateTime() : null, rs.getString("Last_Updated_By"));
         }
-        return userList;
     }
 
     /**
@@ -69,6 +96,26 @@ public abstract class DBUsers {
         return user;
     }
 
+    /**
+     * Replaces the stored password of a user, for example with the hash of a legacy plain text password.
+     *
+     * @param userId   The ID of the user.
+     * @param password The new stored form of the password.
+     * @param userName The name of the user making the change.
+     * @return The number of rows affected by the update.
+     * @throws SQLException If an SQL exception occurs while accessing the database.
+     */
+    public static int updatePassword(int userId, String password, String userName) throws SQLException {
+        String sql = "update users set Password = ?, Last_Update = now(), Last_Updated_By = ? where User_ID = ?";
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, password);
+            ps.setString(2, userName);
+            ps.setInt(3, userId);
+            return ps.executeUpdate();
+        }
+    }
+
     public static int insert() {
         return 0;
     }
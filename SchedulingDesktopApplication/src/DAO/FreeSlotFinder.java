@@ -0,0 +1,157 @@
+package DAO;
+
+import helper.SlotSchedule;
+import model.Appointment;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The FreeSlotFinder class finds times at which a customer and a contact are both free within business hours.
+ *
+ * Business hours are those of SlotSchedule, 08:00 to 22:00 America/New_York, converted to the user's time zone
+ * for each day, so they stay right across daylight saving changes. The busy times of the customer and of the contact come from the interval trees
+ * of AppointmentIndex and are merged into one sorted list, which is then swept once together with the business hours.
+ * After the trees are loaded no database access is needed, so a search is cheap enough to repeat on every change
+ * in the appointment form.
+ *
+ * Slots start on the same half-hour steps as the time combo boxes and never cross midnight, because the form books an
+ * appointment on a single date. Times are in the user's time zone, the frame the appointment forms save in.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class FreeSlotFinder {
+
+    private static final ZoneId businessTimeZone = SlotSchedule.BUSINESS_TIME_ZONE;
+    private static final LocalTime businessHoursStart = SlotSchedule.BUSINESS_HOURS_START;
+    private static final LocalTime businessHoursEnd = SlotSchedule.BUSINESS_HOURS_END;
+    private static final long STEP_SECONDS = SlotSchedule.STEP.getSeconds();
+
+    /**
+     * Finds the first free slots of a given length between two days.
+     *
+     * @param customerId           The ID of the customer, or 0 to ignore customers.
+     * @param contactId            The ID of the contact, or 0 to ignore contacts.
+     * @param firstDay             The first day to search.
+     * @param lastDay              The last day to search, included.
+     * @param length               The length of the slots.
+     * @param maxSlots             The most slots to return.
+     * @param excludeAppointmentId The ID of an appointment whose time counts as free, for example the one being moved,
+     *                             or 0 to exclude none.
+     * @return The start times of the free slots, in order. Slots that start in the past are left out.
+     * @throws SQLException If appointments had to be loaded and a database error occurred.
+     */
+    public static List<LocalDateTime> findFreeSlots(int customerId, int contactId, LocalDate firstDay, LocalDate lastDay,
+                                                    Duration length, int maxSlots, int excludeAppointmentId) throws SQLException {
+        List<LocalDateTime> slots = new ArrayList<>();
+        long lengthSeconds = length.getSeconds();
+        if (lengthSeconds <= 0 || maxSlots <= 0 || lastDay.isBefore(firstDay)) {
+            return slots;
+        }
+
+        LocalDateTime rangeStart = firstDay.atStartOfDay();
+        LocalDateTime rangeEnd = lastDay.plusDays(1).atStartOfDay();
+        long[][] busy = busyTimes(customerId, contactId, rangeStart, rangeEnd, excludeAppointmentId);
+        long[] busyStarts = busy[0];
+        long[] busyEnds = busy[1];
+        int next = 0;
+        long earliest = Math.max(toSeconds(rangeStart), toSeconds(LocalDateTime.now()));
+        ZoneId userTimeZone = ZoneId.systemDefault();
+
+        // A business day in New York can cover parts of two days in the user's time zone, so start a day early
+        for (LocalDate day = firstDay.minusDays(1); !day.isAfter(lastDay.plusDays(1)); day = day.plusDays(1)) {
+            long open = toSeconds(ZonedDateTime.of(day, businessHoursStart, businessTimeZone)
+                    .withZoneSameInstant(userTimeZone).toLocalDateTime());
+            long close = toSeconds(ZonedDateTime.of(day, businessHoursEnd, businessTimeZone)
+                    .withZoneSameInstant(userTimeZone).toLocalDateTime());
+            close = Math.min(close, toSeconds(rangeEnd));
+
+            long slotStart = ceilToStep(Math.max(open, earliest), open);
+            while (slotStart + lengthSeconds <= close) {
+                long slotEnd = slotStart + lengthSeconds;
+                long midnight = toSeconds(fromSeconds(slotStart).toLocalDate().plusDays(1).atStartOfDay());
+                if (slotEnd > midnight) {
+                    slotStart = ceilToStep(midnight, open);
+                    continue;
+                }
+                while (next < busyStarts.length && busyEnds[next] <= slotStart) {
+                    next++;
+                }
+                if (next < busyStarts.length && busyStarts[next] < slotEnd) {
+                    slotStart = ceilToStep(busyEnds[next], open);
+                    continue;
+                }
+                slots.add(fromSeconds(slotStart));
+                if (slots.size() == maxSlots) {
+                    return slots;
+                }
+                slotStart += STEP_SECONDS;
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Collects the busy times of a customer and a contact in a range and merges them into disjoint intervals.
+     *
+     * @return The starts and the ends of the merged intervals, both in ascending order.
+     */
+    private static long[][] busyTimes(int customerId, int contactId, LocalDateTime from, LocalDateTime to,
+                                      int excludeAppointmentId) throws SQLException {
+        List<Appointment> byCustomer = customerId > 0
+                ? AppointmentIndex.findOverlapping(customerId, from, to, excludeAppointmentId) : List.of();
+        List<Appointment> byContact = contactId > 0
+                ? AppointmentIndex.findContactOverlapping(contactId, from, to, excludeAppointmentId) : List.of();
+
+        long[] starts = new long[byCustomer.size() + byContact.size()];
+        long[] ends = new long[starts.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < byCustomer.size() || j < byContact.size()) {
+            Appointment appointment;
+            if (j == byContact.size() || (i < byCustomer.size()
+                    && !byCustomer.get(i).getStart().isAfter(byContact.get(j).getStart()))) {
+                appointment = byCustomer.get(i++);
+            } else {
+                appointment = byContact.get(j++);
+            }
+            long start = toSeconds(appointment.getStart());
+            long end = toSeconds(appointment.getEnd());
+            if (count > 0 && start <= ends[count - 1]) {
+                ends[count - 1] = Math.max(ends[count - 1], end);
+            } else {
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+        }
+        return new long[][]{Arrays.copyOf(starts, count), Arrays.copyOf(ends, count)};
+    }
+
+    /**
+     * Rounds a time up to the next half-hour step counted from the opening of business hours.
+     */
+    private static long ceilToStep(long seconds, long open) {
+        long steps = Math.floorDiv(seconds - open + STEP_SECONDS - 1, STEP_SECONDS);
+        return open + steps * STEP_SECONDS;
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromSeconds(long seconds) {
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,263 @@
+package DAO;
+
+import model.Appointment;
+import model.Occurrence;
+import model.RecurrenceRule;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The RecurringAppointments class keeps the recurring appointments and their rules in memory and works out their
+ * occurrences on demand. Only the occurrences that fall in the window being viewed or checked are ever created,
+ * so a standing meeting is one row and one rule however long it runs.
+ *
+ * The series are read from the database the first time they are needed and are then kept up to date through the
+ * DBAppointments change listeners and the methods that change rules. A change of rule can move occurrences on any
+ * day, so it discards the words of AvailabilityMatrix and is passed on to the listeners as an update.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class RecurringAppointments {
+
+    private static final Comparator<Appointment> byStartAndId =
+            Comparator.comparing(Appointment::getStart).thenComparingInt(Appointment::getId);
+
+    private static Map<Integer, Series> seriesById;
+
+    static {
+        DBAppointments.addChangeListener(new DBAppointments.ChangeListener() {
+            @Override
+            public void updated(Appointment appointment) {
+                synchronized (RecurringAppointments.class) {
+                    Series series = (seriesById != null) ? seriesById.get(appointment.getId()) : null;
+                    if (series != null) {
+                        seriesById.put(appointment.getId(), new Series(new Appointment(appointment), series.rule));
+                    }
+                }
+            }
+
+            @Override
+            public void deleted(Appointment appointment) {
+                synchronized (RecurringAppointments.class) {
+                    if (seriesById != null) {
+                        seriesById.remove(appointment.getId());
+                    }
+                }
+            }
+
+            @Override
+            public void deletedForCustomer(int customerId) {
+                synchronized (RecurringAppointments.class) {
+                    if (seriesById != null) {
+                        seriesById.values().removeIf(series -> series.first.getCustomerId() == customerId);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the rule of an appointment.
+     *
+     * @param appointmentId The ID of the appointment.
+     * @return The rule, or null if the appointment does not repeat.
+     * @throws SQLException If the series had to be loaded and a database error occurred.
+     */
+    public static synchronized RecurrenceRule getRule(int appointmentId) throws SQLException {
+        Series series = series().get(appointmentId);
+        return (series != null) ? series.rule : null;
+    }
+
+    /**
+     * Gets an editable copy of the stored appointment that holds the first occurrence of a series.
+     *
+     * @param appointmentId The ID of the series.
+     * @return The appointment, or null if it does not repeat.
+     * @throws SQLException If the series had to be loaded and a database error occurred.
+     */
+    public static synchronized Appointment getFirstOccurrence(int appointmentId) throws SQLException {
+        Series series = series().get(appointmentId);
+        return (series != null) ? new Appointment(series.first) : null;
+    }
+
+    /**
+     * Makes an appointment repeat, or changes how it repeats. The DBAppointments listeners are told the appointment
+     * was updated, since its occurrences changed.
+     *
+     * @param appointment The stored appointment, which becomes the first occurrence.
+     * @param rule        The rule.
+     * @throws SQLException If a database error occurs.
+     */
+    public static void save(Appointment appointment, RecurrenceRule rule) throws SQLException {
+        synchronized (RecurringAppointments.class) {
+            DBRecurrences.save(appointment.getId(), rule);
+            series().put(appointment.getId(), new Series(new Appointment(appointment), rule));
+        }
+        // Outside the lock: the caches below call back into this class while holding their own locks
+        AvailabilityMatrix.clear();
+        DBAppointments.fireUpdated(appointment);
+    }
+
+    /**
+     * Makes an appointment stop repeating. The stored appointment stays as a single appointment.
+     *
+     * @param appointment The stored appointment of the series.
+     * @throws SQLException If a database error occurs.
+     */
+    public static void stopRepeating(Appointment appointment) throws SQLException {
+        synchronized (RecurringAppointments.class) {
+            DBRecurrences.delete(appointment.getId());
+            series().remove(appointment.getId());
+        }
+        AvailabilityMatrix.clear();
+        DBAppointments.fireUpdated(appointment);
+    }
+
+    /**
+     * Cancels one occurrence of a series by adding its date to the exceptions of the rule.
+     *
+     * @param occurrence The occurrence.
+     * @throws SQLException If a database error occurs.
+     */
+    public static void skip(Occurrence occurrence) throws SQLException {
+        Series series;
+        synchronized (RecurringAppointments.class) {
+            series = series().get(occurrence.getId());
+        }
+        if (series != null) {
+            save(series.first, series.rule.withException(occurrence.getStart().toLocalDate()));
+        }
+    }
+
+    /**
+     * Works out the later occurrences of every series that overlap a time window.
+     *
+     * @param from                 The inclusive start of the window.
+     * @param to                   The exclusive end of the window.
+     * @param customerId           The ID of the customer whose series to include, or 0 for every customer.
+     * @param contactId            The ID of the contact whose series to include, or 0 for every contact.
+     * @param excludeAppointmentId The ID of a series to leave out, or 0 to leave out none.
+     * @return The occurrences ordered by start and ID.
+     * @throws SQLException If the series had to be loaded and a database error occurred.
+     */
+    public static synchronized List<Appointment> occurrences(LocalDateTime from, LocalDateTime to, int customerId,
+                                                             int contactId, int excludeAppointmentId) throws SQLException {
+        List<Appointment> occurrences = new ArrayList<>();
+        for (Series series : series().values()) {
+            Appointment first = series.first;
+            if ((customerId != 0 && first.getCustomerId() != customerId)
+                    || (contactId != 0 && first.getContactId() != contactId)
+                    || first.getId() == excludeAppointmentId
+                    || first.getStart() == null || first.getEnd() == null) {
+                continue;
+            }
+            Duration length = Duration.between(first.getStart(), first.getEnd());
+            for (LocalDateTime start : series.rule.startsBetween(first.getStart(), length, from, to)) {
+                occurrences.add(new Occurrence(first, start));
+            }
+        }
+        occurrences.sort(byStartAndId);
+        return occurrences;
+    }
+
+    /**
+     * Works out the later occurrences of some series that start in a time window, for tables that list appointments
+     * by start and need to show the occurrences of series that changed.
+     *
+     * @param appointmentIds The IDs of the series; IDs of appointments that do not repeat are ignored.
+     * @param from           The inclusive start of the window.
+     * @param to             The exclusive end of the window.
+     * @return The occurrences ordered by start and ID.
+     * @throws SQLException If the series had to be loaded and a database error occurred.
+     */
+    public static synchronized List<Appointment> occurrencesOf(Set<Integer> appointmentIds, LocalDateTime from,
+                                                               LocalDateTime to) throws SQLException {
+        List<Appointment> occurrences = new ArrayList<>();
+        for (Appointment occurrence : occurrences(from, to, 0, 0, 0)) {
+            if (appointmentIds.contains(occurrence.getId()) && !occurrence.getStart().isBefore(from)) {
+                occurrences.add(occurrence);
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Checks whether a later occurrence of one of a customer's series overlaps a time interval.
+     *
+     * @param customerId           The ID of the customer.
+     * @param start                The start of the interval.
+     * @param end                  The end of the interval.
+     * @param excludeAppointmentId The ID of a series to ignore, for example the one being moved, or 0 to ignore none.
+     * @return True if an occurrence overlaps the interval.
+     * @throws SQLException If the series had to be loaded and a database error occurred.
+     */
+    public static synchronized boolean hasOverlap(int customerId, LocalDateTime start, LocalDateTime end,
+                                                  int excludeAppointmentId) throws SQLException {
+        return !occurrences(start, end, customerId, 0, excludeAppointmentId).isEmpty();
+    }
+
+    /**
+     * Merges occurrences into a list of stored appointments, keeping the order by start and ID.
+     *
+     * @param appointments The stored appointments, ordered by start and ID.
+     * @param occurrences  The occurrences, ordered by start and ID.
+     * @return The merged list.
+     */
+    public static List<Appointment> merge(List<Appointment> appointments, List<Appointment> occurrences) {
+        if (occurrences.isEmpty()) {
+            return appointments;
+        }
+        List<Appointment> merged = new ArrayList<>(appointments.size() + occurrences.size());
+        int i = 0;
+        int j = 0;
+        while (i < appointments.size() || j < occurrences.size()) {
+            if (j == occurrences.size() || (i < appointments.size()
+                    && byStartAndId.compare(appointments.get(i), occurrences.get(j)) <= 0)) {
+                merged.add(appointments.get(i++));
+            } else {
+                merged.add(occurrences.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Discards the series, so they are read again on the next request.
+     */
+    public static synchronized void invalidate() {
+        seriesById = null;
+    }
+
+    private static Map<Integer, Series> series() throws SQLException {
+        if (seriesById == null) {
+            Map<Integer, Series> loaded = new HashMap<>();
+            for (Map.Entry<Appointment, RecurrenceRule> entry : DBRecurrences.selectSeries().entrySet()) {
+                loaded.put(entry.getKey().getId(), new Series(entry.getKey(), entry.getValue()));
+            }
+            seriesById = loaded;
+        }
+        return seriesById;
+    }
+
+    /**
+     * A recurring appointment: the stored first occurrence and the rule that gives the others.
+     */
+    private static class Series {
+        private final Appointment first;
+        private final RecurrenceRule rule;
+
+        private Series(Appointment first, RecurrenceRule rule) {
+            this.first = first;
+            this.rule = rule;
+        }
+    }
+}
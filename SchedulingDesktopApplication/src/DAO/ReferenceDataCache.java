@@ -0,0 +1,188 @@
+package DAO;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Contact;
+import model.Country;
+import model.FirstLevelDivision;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ReferenceDataCache class keeps the countries, first-level divisions and contacts in memory for the whole
+ * application. These tables are small and rarely change, but they are looked up on almost every screen.
+ * The data is read once, in the background at startup or on first use, and indexed by ID, by name and,
+ * for divisions, by country. The insert, update and delete methods of these tables invalidate the cache,
+ * so the next lookup reads the tables again.
+ *
+ * The lists returned to callers are copies; the Country, FirstLevelDivision and Contact objects are shared.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class ReferenceDataCache {
+
+    private static final Object lock = new Object();
+    private static volatile Snapshot snapshot;
+
+    /**
+     * Starts loading the reference data in the background, so the first screen that needs it does not wait.
+     */
+    public static void preload() {
+        DBAsync.supply(ReferenceDataCache::snapshot).exceptionally(e -> {
+            System.out.println("Could not load reference data: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Discards the cached data. Called after the reference tables are changed.
+     * If a load is running, this waits for it so the data it read is discarded as well.
+     */
+    public static void invalidate() {
+        synchronized (lock) {
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Gets all countries.
+     *
+     * @return An ObservableList of the countries.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static ObservableList<Country> getCountries() throws SQLException {
+        return FXCollections.observableArrayList(snapshot().countries);
+    }
+
+    /**
+     * Gets a country by its ID.
+     *
+     * @param countryId The ID of the country.
+     * @return The Country object, or null if not found.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static Country getCountry(int countryId) throws SQLException {
+        return snapshot().countriesById.get(countryId);
+    }
+
+    /**
+     * Gets all first-level divisions.
+     *
+     * @return An ObservableList of the divisions.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static ObservableList<FirstLevelDivision> getDivisions() throws SQLException {
+        return FXCollections.observableArrayList(snapshot().divisions);
+    }
+
+    /**
+     * Gets the first-level divisions of a country.
+     *
+     * @param countryId The ID of the country.
+     * @return An ObservableList of the divisions of the country, empty if it has none.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static ObservableList<FirstLevelDivision> getDivisions(int countryId) throws SQLException {
+        return FXCollections.observableArrayList(
+                snapshot().divisionsByCountry.getOrDefault(countryId, Collections.emptyList()));
+    }
+
+    /**
+     * Gets a first-level division by its ID.
+     *
+     * @param divisionId The ID of the division.
+     * @return The FirstLevelDivision object, or null if not found.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static FirstLevelDivision getDivision(int divisionId) throws SQLException {
+        return snapshot().divisionsById.get(divisionId);
+    }
+
+    /**
+     * Gets all contacts.
+     *
+     * @return An ObservableList of the contacts.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static ObservableList<Contact> getContacts() throws SQLException {
+        return FXCollections.observableArrayList(snapshot().contacts);
+    }
+
+    /**
+     * Gets a contact by its ID.
+     *
+     * @param contactId The ID of the contact.
+     * @return The Contact object, or null if not found.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static Contact getContact(int contactId) throws SQLException {
+        return snapshot().contactsById.get(contactId);
+    }
+
+    /**
+     * Gets a contact by its name.
+     *
+     * @param contactName The name of the contact.
+     * @return The Contact object, or null if not found.
+     * @throws SQLException If the data had to be loaded and a database error occurred.
+     */
+    public static Contact getContactByName(String contactName) throws SQLException {
+        return snapshot().contactsByName.get(contactName);
+    }
+
+    /**
+     * Returns the cached data, loading it first if needed. Only one thread loads at a time.
+     *
+     * @return The cached data.
+     * @throws SQLException If a database error occurs while loading.
+     */
+    private static Snapshot snapshot() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null) {
+                snapshot = new Snapshot(DBCountries.select(), DBFirstLevelDivisions.select(), DBContacts.select());
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * The reference data read at one point in time, with its indexes. Never changed after it is built.
+     */
+    private static class Snapshot {
+        private final List<Country> countries;
+        private final Map<Integer, Country> countriesById = new HashMap<>();
+        private final List<FirstLevelDivision> divisions;
+        private final Map<Integer, FirstLevelDivision> divisionsById = new HashMap<>();
+        private final Map<Integer, List<FirstLevelDivision>> divisionsByCountry = new HashMap<>();
+        private final List<Contact> contacts;
+        private final Map<Integer, Contact> contactsById = new HashMap<>();
+        private final Map<String, Contact> contactsByName = new HashMap<>();
+
+        private Snapshot(List<Country> countries, List<FirstLevelDivision> divisions, List<Contact> contacts) {
+            this.countries = new ArrayList<>(countries);
+            this.divisions = new ArrayList<>(divisions);
+            this.contacts = new ArrayList<>(contacts);
+            for (Country country : countries) {
+                countriesById.put(country.getCountryId(), country);
+            }
+            for (FirstLevelDivision division : divisions) {
+                divisionsById.put(division.getDivisionId(), division);
+                divisionsByCountry.computeIfAbsent(division.getCountryId(), id -> new ArrayList<>()).add(division);
+            }
+            for (Contact contact : contacts) {
+                contactsById.put(contact.getContactId(), contact);
+                contactsByName.putIfAbsent(contact.getContactName(), contact);
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package DAO;
+
+import helper.KeysetPager;
+import helper.TableDelta;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Appointment;
+import model.Customer;
+import model.User;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The SessionStore class holds the customer and appointment data the screens show, for the whole session.
+ * The tables of the main screen are attached to the pagers kept here, so going back to it shows the rows
+ * already loaded instead of reading them again. The customers and users
+ * offered in the appointment forms are read once as well.
+ *
+ * The data is written through: the changes made with DBCustomers and DBAppointments are merged in as they are
+ * saved, through their change listeners, so it needs no query to stay current with this application's own edits.
+ * Changes made by other users are read as a delta when the main screen is shown and its rows are older than
+ * {@link #REFRESH_AFTER}.
+ *
+ * The pagers must be used on the JavaFX Application Thread; changes saved on another thread are merged there.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class SessionStore {
+
+    /**
+     * The appointments shown in the appointment table.
+     */
+    public enum AppointmentView { ALL, WEEK, MONTH }
+
+    /**
+     * The number of rows read from the database at a time for each table.
+     */
+    public static final int PAGE_SIZE = 100;
+
+    /**
+     * The age after which the rows of the main screen are refreshed when it is shown again.
+     */
+    public static final Duration REFRESH_AFTER = Duration.ofMinutes(1);
+
+    private static KeysetPager<Customer> customerPager;
+    private static KeysetPager<Appointment> appointmentPager;
+    private static AppointmentView appointmentView = AppointmentView.ALL;
+    private static LocalDateTime appointmentsFrom;
+    private static LocalDateTime appointmentsTo;
+    private static List<Customer> customers;
+    private static List<User> users;
+
+    static {
+        DBCustomers.addChangeListener(new DBCustomers.ChangeListener() {
+            @Override
+            public void inserted(Customer customer) {
+                customerChanged(new Customer(customer));
+            }
+
+            @Override
+            public void updated(Customer customer) {
+                customerChanged(new Customer(customer));
+            }
+
+            @Override
+            public void deleted(Customer customer) {
+                int customerId = customer.getCustomerId();
+                synchronized (SessionStore.class) {
+                    if (customers != null) {
+                        customers.removeIf(c -> c.getCustomerId() == customerId);
+                    }
+                }
+                onFxThread(() -> {
+                    if (customerPager != null) {
+                        customerPager.apply(new TableDelta<>(List.of(), Set.of(customerId)));
+                    }
+                });
+            }
+        });
+        DBAppointments.addChangeListener(new DBAppointments.ChangeListener() {
+            @Override
+            public void inserted(Appointment appointment) {
+                Appointment copy = new Appointment(appointment);
+                onFxThread(() -> appointmentChanged(copy));
+            }
+
+            @Override
+            public void updated(Appointment appointment) {
+                Appointment copy = new Appointment(appointment);
+                onFxThread(() -> appointmentChanged(copy));
+            }
+
+            @Override
+            public void deleted(Appointment appointment) {
+                int appointmentId = appointment.getId();
+                onFxThread(() -> {
+                    if (appointmentPager != null) {
+                        appointmentPager.apply(new TableDelta<>(List.of(), Set.of(appointmentId)));
+                    }
+                });
+            }
+
+            @Override
+            public void deletedForCustomer(int customerId) {
+                onFxThread(() -> {
+                    if (appointmentPager != null) {
+                        appointmentPager.getItems().removeIf(appointment -> appointment.getCustomerId() == customerId);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Gets the pager of the customer table, creating it and loading its first page the first time.
+     *
+     * @return The pager.
+     */
+    public static KeysetPager<Customer> getCustomerPager() {
+        if (customerPager == null) {
+            customerPager = new KeysetPager<>("customerId", PAGE_SIZE, DBCustomers::selectPage,
+                    (since, sortProperty) -> DBCustomers.selectChangedSince(since),
+                    Customer::getCustomerId, DBCustomers::comparator);
+        }
+        return customerPager;
+    }
+
+    /**
+     * Gets the pager of the appointment table, creating it and loading its first page the first time.
+     * It starts with every appointment; the main screen changes its query with the selected view.
+     *
+     * @return The pager.
+     */
+    public static KeysetPager<Appointment> getAppointmentPager() {
+        if (appointmentPager == null) {
+            appointmentPager = new KeysetPager<>("start", PAGE_SIZE, (after, sortProperty, descending, pageSize) ->
+                    DBAppointments.selectPage(null, null, after, sortProperty, descending, pageSize),
+                    (since, sortProperty) -> DBAppointments.selectChangedSince(null, null, since, false),
+                    Appointment::getId, DBAppointments::comparator);
+        }
+        return appointmentPager;
+    }
+
+    /**
+     * Gets the appointments shown in the appointment table.
+     *
+     * @return The view selected last.
+     */
+    public static AppointmentView getAppointmentView() {
+        return appointmentView;
+    }
+
+    /**
+     * Records which appointments the appointment table shows, so saved appointments outside of them are not merged in.
+     * Called together with setting the query of the appointment pager.
+     *
+     * @param view The view.
+     * @param from The inclusive lower bound of the start, as in the query, or null for no lower bound.
+     * @param to   The exclusive upper bound of the start, as in the query, or null for no upper bound.
+     */
+    public static void setAppointmentView(AppointmentView view, LocalDateTime from, LocalDateTime to) {
+        appointmentView = view;
+        appointmentsFrom = from;
+        appointmentsTo = to;
+    }
+
+    /**
+     * Gets every customer, read from the database the first time.
+     *
+     * @return An ObservableList of the customers.
+     * @throws SQLException If the customers had to be loaded and a database error occurred.
+     */
+    public static synchronized ObservableList<Customer> getCustomers() throws SQLException {
+        if (customers == null) {
+            customers = new ArrayList<>(DBCustomers.select());
+        }
+        return FXCollections.observableArrayList(customers);
+    }
+
+    /**
+     * Gets every user, read from the database the first time.
+     *
+     * @return An ObservableList of the users.
+     * @throws SQLException If the users had to be loaded and a database error occurred.
+     */
+    public static synchronized ObservableList<User> getUsers() throws SQLException {
+        if (users == null) {
+            users = new ArrayList<>(DBUsers.select());
+        }
+        return FXCollections.observableArrayList(users);
+    }
+
+    /**
+     * Gets a customer from the customers of the session.
+     *
+     * @param customerId The ID of the customer.
+     * @return The customer, or null if not found.
+     * @throws SQLException If the customers had to be loaded and a database error occurred.
+     */
+    public static synchronized Customer getCustomer(int customerId) throws SQLException {
+        for (Customer customer : getCustomers()) {
+            if (customer.getCustomerId() == customerId) {
+                return customer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a user from the users of the session.
+     *
+     * @param userId The ID of the user.
+     * @return The user, or null if not found.
+     * @throws SQLException If the users had to be loaded and a database error occurred.
+     */
+    public static synchronized User getUser(int userId) throws SQLException {
+        for (User user : getUsers()) {
+            if (user.getUserId() == userId) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    private static void customerChanged(Customer customer) {
+        synchronized (SessionStore.class) {
+            if (customers != null) {
+                int index = 0;
+                while (index < customers.size() && customers.get(index).getCustomerId() != customer.getCustomerId()) {
+                    index++;
+                }
+                if (index < customers.size()) {
+                    customers.set(index, customer);
+                } else {
+                    customers.add(customer);
+                }
+            }
+        }
+        onFxThread(() -> {
+            if (customerPager != null) {
+                customerPager.apply(new TableDelta<>(List.of(customer), Set.of()));
+            }
+        });
+    }
+
+    /**
+     * Merges a saved appointment into the appointment table, with its occurrences when the table shows them,
+     * or removes it when it is no longer among the appointments shown.
+     */
+    private static void appointmentChanged(Appointment appointment) {
+        if (appointmentPager == null) {
+            return;
+        }
+        List<Appointment> changed = new ArrayList<>();
+        LocalDateTime start = appointment.getStart();
+        if ((appointmentsFrom == null || !start.isBefore(appointmentsFrom))
+                && (appointmentsTo == null || start.isBefore(appointmentsTo))) {
+            changed.add(appointment);
+        }
+        if (appointmentsFrom != null && appointmentsTo != null && "start".equals(appointmentPager.getSortProperty())) {
+            try {
+                changed.addAll(RecurringAppointments.occurrencesOf(Set.of(appointment.getId()), appointmentsFrom, appointmentsTo));
+            } catch (SQLException e) {
+                System.out.println("Could not read the occurrences of appointment " + appointment.getId() + ": " + e.getMessage());
+            }
+        }
+        appointmentPager.apply(new TableDelta<>(changed, changed.isEmpty() ? Set.of(appointment.getId()) : Set.of()));
+    }
+
+    private static void onFxThread(Runnable runnable) {
+        if (Platform.isFxApplicationThread()) {
+            runnable.run();
+        } else {
+            Platform.runLater(runnable);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package Main;
 
-import DAO.DBCountries;
+import DAO.DBIndexes;
+import DAO.DBRecurrences;
+import DAO.DBTombstones;
+import DAO.ReferenceDataCache;
 import helper.JDBC;
+import helper.StringDictionary;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -34,7 +38,7 @@ public class Main extends Application {
 
     /**
      * The main method is the entry point of the application.
-     * It initializes the database connection, launches the JavaFX application, retrieves countries' data,
+     * It initializes the database connection, makes sure the query indexes exist, starts loading the countries, divisions and contacts, launches the JavaFX application,
      * and closes the database connection after the application is closed.
      *
      * @param args Command-line arguments.
@@ -44,8 +48,12 @@ public class Main extends Application {
 
 //      Locale.setDefault(new Locale("fr", "FR"));
         JDBC.openConnection();
+        DBIndexes.ensureIndexes();
+        DBRecurrences.ensureTable();
+        DBTombstones.ensureTable();
+        ReferenceDataCache.preload();
         launch(args);
-        DBCountries.select();
+        System.out.println(StringDictionary.shared.report());
         JDBC.closeConnection();
     }
 }
\ No newline at end of file
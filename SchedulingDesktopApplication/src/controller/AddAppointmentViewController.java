@@ -1,18 +1,20 @@
 package controller;
 
+import DAO.AvailabilityMatrix;
 import DAO.DBAppointments;
-import DAO.DBContacts;
-import DAO.DBCustomers;
-import DAO.DBUsers;
+import DAO.DBAsync;
+import DAO.FreeSlotFinder;
+import DAO.RecurringAppointments;
+import DAO.ReferenceDataCache;
+import DAO.SessionStore;
 import helper.Alerts;
+import helper.Navigator;
+import helper.SlotSchedule;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
@@ -21,6 +23,7 @@ import javafx.stage.Stage;
 import model.Appointment;
 import model.Contact;
 import model.Customer;
+import model.RecurrenceRule;
 import model.User;
 
 import java.io.IOException;
@@ -30,6 +33,8 @@ import java.time.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The AppointmentController class is responsible for managing the appointment creation and modification process
@@ -39,10 +44,9 @@ import java.util.ResourceBundle;
  * @author Elham Pazhakh
  * JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
-public class AddAppointmentViewController implements Initializable {
+public class AddAppointmentViewController implements Initializable, Navigator.Reusable {
 
     Stage stage;
-    Parent scene;
     public ComboBox<LocalTime> startCombo;
     public ComboBox<LocalTime> endCombo;
     @FXML
@@ -63,6 +67,20 @@ public class AddAppointmentViewController implements Initializable {
     private TextField typeTxt;
     @FXML
     private DatePicker datePicker;
+    private List<LocalTime> businessStartTimes = new ArrayList<>();
+    private List<LocalTime> businessEndTimes = new ArrayList<>();
+    @FXML
+    private ComboBox<LocalDateTime> freeSlotCombo;
+    @FXML
+    private ComboBox<String> repeatCombo;
+    @FXML
+    private DatePicker repeatUntilPicker;
+    private static final String DOES_NOT_REPEAT = "Does not repeat";
+    private boolean applyingFreeSlot = false;
+    private CompletableFuture<Void> freeSlotLoad;
+    private CompletableFuture<Void> timeFilterLoad;
+    private long freeSlots;
+    private boolean freeSlotsLoaded = false;
 
 
     /**
@@ -72,7 +90,7 @@ public class AddAppointmentViewController implements Initializable {
      */
     public void setContactCombo() throws SQLException {
         contactCombo.setPromptText("Pick a contact");
-        ObservableList<Contact> contacts = DBContacts.select();
+        ObservableList<Contact> contacts = ReferenceDataCache.getContacts();
         contactCombo.setItems(contacts);
         contactCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -88,7 +106,7 @@ public class AddAppointmentViewController implements Initializable {
      */
     public void setUserCombo() throws SQLException {
         UserCombo.setPromptText("Pick a user");
-        ObservableList<User> users = DBUsers.select();
+        ObservableList<User> users = SessionStore.getUsers();
         UserCombo.setItems(users);
         UserCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -104,7 +122,7 @@ public class AddAppointmentViewController implements Initializable {
      */
     public void setCustomerCombo() throws SQLException {
         customerCombo.setPromptText("Pick a customer");
-        ObservableList<Customer> customers = DBCustomers.select();
+        ObservableList<Customer> customers = SessionStore.getCustomers();
         customerCombo.setItems(customers);
         customerCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -115,80 +133,129 @@ public class AddAppointmentViewController implements Initializable {
 
     /**
      * Initializes the start time combo box in the UI, providing a list of available appointment start times
-     * within business hours.
+     * within business hours on the chosen date, or today if none is chosen.
      */
     public void setStartCombo() {
         startCombo.setPromptText("Pick appointment's start");
-
-        ZoneId userTimeZone = ZoneId.systemDefault();
-        ZoneId estZone = ZoneId.of("America/New_York");
-
-        ZonedDateTime startEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(8, 0), estZone);
-        ZonedDateTime endEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(21, 30), estZone);
-
-        ZonedDateTime startUserTime = startEst.withZoneSameInstant(userTimeZone);
-        ZonedDateTime endUserTime = endEst.withZoneSameInstant(userTimeZone);
-
-        LocalTime businessHoursStartUser = startUserTime.toLocalTime();
-        LocalTime businessHoursEndUser = endUserTime.toLocalTime();
-
-        List<LocalTime> availableHours = new ArrayList<>();
-        LocalTime currentHour = businessHoursStartUser;
-
-        while (true) {
-            availableHours.add(currentHour);
-            if (currentHour.equals(businessHoursEndUser)) {
-                break;
-            }
-            currentHour = currentHour.plusMinutes(30);
-
-            if (currentHour.equals(LocalTime.MIDNIGHT)) {
-                currentHour = LocalTime.of(0, 0);
-            }
-        }
-
-        ObservableList<LocalTime> hours = FXCollections.observableArrayList(availableHours);
-         startCombo.setItems(hours);
+        businessStartTimes = SlotSchedule.of(datePicker.getValue()).getStartTimes();
+        startCombo.setItems(FXCollections.observableArrayList(businessStartTimes));
     }
 
-
     /**
      * Initializes the end time combo box in the UI, providing a list of available appointment end times
-     * within business hours.
+     * within business hours on the chosen date, or today if none is chosen.
      */
     public void setEndCombo(){
         endCombo.setPromptText("Pick appointment's end");
+        businessEndTimes = SlotSchedule.of(datePicker.getValue()).getEndTimes();
+        endCombo.setItems(FXCollections.observableArrayList(businessEndTimes));
+    }
 
+    /**
+     * Initializes the free slot combo box in the UI. It lists the first times in the week from the chosen date at which
+     * the chosen customer and contact are both free for the chosen length, and is refreshed whenever one of those
+     * changes. Picking a slot fills in the date, start and end.
+     */
+    public void setFreeSlotCombo() {
+        freeSlotCombo.setPromptText("Pick a free slot");
+        customerCombo.valueProperty().addListener((observable, oldValue, newValue) -> refreshFreeSlots());
+        contactCombo.valueProperty().addListener((observable, oldValue, newValue) -> refreshFreeSlots());
+        datePicker.valueProperty().addListener((observable, oldValue, newValue) -> refreshFreeSlots());
+        startCombo.valueProperty().addListener((observable, oldValue, newValue) -> refreshFreeSlots());
+        endCombo.valueProperty().addListener((observable, oldValue, newValue) -> refreshFreeSlots());
+
+        freeSlotCombo.valueProperty().addListener((observable, oldValue, slot) -> {
+            if (slot == null || applyingFreeSlot) {
+                return;
+            }
+            Duration length = selectedLength();
+            applyingFreeSlot = true;
+            datePicker.setValue(slot.toLocalDate());
+            startCombo.setValue(slot.toLocalTime());
+            endCombo.setValue(slot.plus(length).toLocalTime());
+            applyingFreeSlot = false;
+        });
+    }
 
-        ZoneId userTimeZone = ZoneId.systemDefault();
-        ZoneId estZone = ZoneId.of("America/New_York");
-
-        ZonedDateTime startEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(8, 30), estZone);
-        ZonedDateTime endEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(22, 0), estZone);
-
-        ZonedDateTime startUserTime = startEst.withZoneSameInstant(userTimeZone);
-        ZonedDateTime endUserTime = endEst.withZoneSameInstant(userTimeZone);
-
-        LocalTime businessHoursStartUser = startUserTime.toLocalTime();
-        LocalTime businessHoursEndUser = endUserTime.toLocalTime();
-
-        List<LocalTime> availableHours = new ArrayList<>();
-        LocalTime currentHour = businessHoursStartUser;
+    /**
+     * Searches the free slots again for the current customer, contact, date and length. The search may have to read
+     * appointments, so it runs in the background; a search still running for earlier choices is cancelled.
+     */
+    private void refreshFreeSlots() {
+        if (applyingFreeSlot) {
+            return;
+        }
+        cancelFreeSlotLoad();
+        Customer selectedCustomer = customerCombo.getValue();
+        Contact selectedContact = contactCombo.getValue();
+        if (selectedCustomer == null && selectedContact == null) {
+            freeSlotCombo.getItems().clear();
+            return;
+        }
+        int customerId = selectedCustomer != null ? selectedCustomer.getCustomerId() : 0;
+        int contactId = selectedContact != null ? selectedContact.getContactId() : 0;
+        LocalDate firstDay = datePicker.getValue() != null ? datePicker.getValue() : LocalDate.now();
+        Duration length = selectedLength();
+        freeSlotLoad = DBAsync.load(() -> FreeSlotFinder.findFreeSlots(customerId, contactId, firstDay,
+                        firstDay.plusDays(6), length, 20, 0),
+                slots -> freeSlotCombo.setItems(FXCollections.observableArrayList(slots)),
+                error -> {
+                    freeSlotCombo.getItems().clear();
+                    Alerts.showSaveConfirmation("Could not search for free slots: " + error.getMessage());
+                });
+    }
 
-        while (true) {
-            availableHours.add(currentHour);
-            if (currentHour.equals(businessHoursEndUser)) {
-                break;
-            }
-            currentHour = currentHour.plusMinutes(30);
+    /**
+     * Cancels the free slot search that is still running, if any, so its result is not shown.
+     */
+    private void cancelFreeSlotLoad() {
+        if (freeSlotLoad != null) {
+            freeSlotLoad.cancel(true);
+            freeSlotLoad = null;
+        }
+    }
 
-            if (currentHour.equals(LocalTime.MIDNIGHT)) {
-                currentHour = LocalTime.of(0, 0);
+    /**
+     * Gets the length between the chosen start and end, or 30 minutes when they do not form a valid range.
+     */
+    private Duration selectedLength() {
+        LocalTime startTime = startCombo.getValue();
+        LocalTime endTime = endCombo.getValue();
+        if (startTime != null && endTime != null) {
+            LocalDate day = LocalDate.now();
+            LocalDateTime start = LocalDateTime.of(day, startTime);
+            LocalDateTime end = SlotSchedule.endOn(day, endTime);
+            if (end.isAfter(start)) {
+                return Duration.between(start, end);
             }
         }
+        return Duration.ofMinutes(30);
+    }
 
-        ObservableList<LocalTime> hours = FXCollections.observableArrayList(availableHours);
-        endCombo.setItems(hours);
+    /**
+     * Initializes the repeat combo box in the UI with the ways an appointment can repeat.
+     */
+    public void setRepeatCombo() {
+        repeatCombo.setItems(FXCollections.observableArrayList(DOES_NOT_REPEAT, "Daily", "Weekly", "Monthly"));
+        repeatCombo.valueProperty().addListener((observable, oldValue, newValue) ->
+                repeatUntilPicker.setDisable(newValue == null || newValue.equals(DOES_NOT_REPEAT)));
+        repeatCombo.setValue(DOES_NOT_REPEAT);
+        repeatUntilPicker.setDisable(true);
+    }
+
+    /**
+     * Builds the rule chosen in the repeat controls.
+     *
+     * @param exceptions The dates to skip, kept from an earlier rule.
+     * @return The rule, or null if the appointment does not repeat.
+     */
+    private RecurrenceRule selectedRecurrenceRule(Set<LocalDate> exceptions) {
+        String repeat = repeatCombo.getValue();
+        if (repeat == null || repeat.equals(DOES_NOT_REPEAT)) {
+            return null;
+        }
+        return new RecurrenceRule(RecurrenceRule.Frequency.valueOf(repeat.toUpperCase()), 1,
+                repeatUntilPicker.getValue(), exceptions);
     }
 
     /**
@@ -236,23 +303,27 @@ public class AddAppointmentViewController implements Initializable {
         }
 
         LocalDateTime start = LocalDateTime.of(selectedDate, startTime);
-        LocalDateTime end = LocalDateTime.of(selectedDate, endTime);
+        LocalDateTime end = SlotSchedule.endOn(selectedDate, endTime);
 
         String title = titleTxt.getText();
         String description = descriptionTxt.getText();
         String location = locationTxt.getText();
         String type = typeTxt.getText();
+        RecurrenceRule rule = selectedRecurrenceRule(Set.of());
         if (appointmentOverlap(start, end, selectedCustomer.getCustomerId())) {
             Alerts.showSaveConfirmation("Time slot clash! Please choose a different time.");
+        } else if (rule != null && end.isAfter(start) && DBAppointments.hasSeriesOverlap(selectedCustomer.getCustomerId(), start, end, rule, 0)) {
+            Alerts.showSaveConfirmation("Time slot clash! A later occurrence overlaps another appointment.");
         } else if (Alerts.AppointmentErrorHandling(title, description, location, type) && Alerts.appointmentTimingError(start, end)){
             Appointment appointment = new Appointment(0, title, description, location, type, start, end, LocalDateTime.now(), "script", LocalDateTime.now(), "script", selectedCustomer.getCustomerId(), selectedUser.getUserId(), selectedContact.getContactId());
             DBAppointments.insert(appointment);
+            if (rule != null) {
+                RecurringAppointments.save(appointment, rule);
+            }
             Alerts.showSaveConfirmation("Appointment added successfully!");
             //clearFields();
             stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-            scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-            stage.setScene(new Scene(scene));
-            stage.show();
+            Navigator.show(stage, Navigator.MAIN_VIEW);
         }
 
     }
@@ -264,11 +335,11 @@ public class AddAppointmentViewController implements Initializable {
      * @throws IOException If an error occurs during navigation.
      */
     public void OnActionCancelAppointment(ActionEvent event) throws IOException {
+        cancelFreeSlotLoad();
+        cancelTimeFilterLoad();
         clearFields();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
@@ -278,10 +349,10 @@ public class AddAppointmentViewController implements Initializable {
      * @throws IOException If an error occurs during navigation.
      */
     public void OnActionBackAppointment(ActionEvent event) throws IOException {
+        cancelFreeSlotLoad();
+        cancelTimeFilterLoad();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
@@ -299,6 +370,69 @@ public class AddAppointmentViewController implements Initializable {
         datePicker.setValue(null);
     }
 
+    /**
+     * Makes the start and end combo boxes offer only the times at which the chosen customer and contact are free
+     * on the chosen date, and the end combo box only the ends that do not run into a booking after the chosen start.
+     */
+    public void setTimeComboFilter() {
+        customerCombo.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(true));
+        contactCombo.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(true));
+        datePicker.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(true));
+        startCombo.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(false));
+    }
+
+    /**
+     * Sets the items of the time combo boxes from the free half hours of the chosen date. The free half hours may
+     * have to be read from the database, so they are loaded in the background and the business hours are offered
+     * until they arrive, or if they cannot be read. A change of the start only filters the end times again.
+     *
+     * @param includeStart True to filter the start times as well as the end times.
+     */
+    private void filterTimeCombos(boolean includeStart) {
+        Customer selectedCustomer = customerCombo.getValue();
+        Contact selectedContact = contactCombo.getValue();
+        LocalDate selectedDate = datePicker.getValue();
+        if (!includeStart) {
+            if (freeSlotsLoaded) {
+                endCombo.setItems(FXCollections.observableArrayList(
+                        AvailabilityMatrix.freeEndTimes(freeSlots, startCombo.getValue(), businessEndTimes)));
+            }
+            return;
+        }
+        cancelTimeFilterLoad();
+        SlotSchedule schedule = SlotSchedule.of(selectedDate);
+        businessStartTimes = schedule.getStartTimes();
+        businessEndTimes = schedule.getEndTimes();
+        startCombo.setItems(FXCollections.observableArrayList(businessStartTimes));
+        endCombo.setItems(FXCollections.observableArrayList(businessEndTimes));
+        if (selectedDate == null || (selectedCustomer == null && selectedContact == null)) {
+            return;
+        }
+        int customerId = selectedCustomer != null ? selectedCustomer.getCustomerId() : 0;
+        int contactId = selectedContact != null ? selectedContact.getContactId() : 0;
+        int excludeAppointmentId = 0;
+        timeFilterLoad = DBAsync.load(() -> AvailabilityMatrix.freeSlots(customerId, contactId, selectedDate, excludeAppointmentId),
+                free -> {
+                    freeSlots = free;
+                    freeSlotsLoaded = true;
+                    startCombo.setItems(FXCollections.observableArrayList(AvailabilityMatrix.freeStartTimes(free, businessStartTimes)));
+                    endCombo.setItems(FXCollections.observableArrayList(
+                            AvailabilityMatrix.freeEndTimes(free, startCombo.getValue(), businessEndTimes)));
+                },
+                error -> System.out.println("Could not read the free times of " + selectedDate + ": " + error.getMessage()));
+    }
+
+    /**
+     * Cancels the free time load that is still running, if any, and forgets the free times of the earlier choices.
+     */
+    private void cancelTimeFilterLoad() {
+        if (timeFilterLoad != null) {
+            timeFilterLoad.cancel(true);
+            timeFilterLoad = null;
+        }
+        freeSlotsLoaded = false;
+    }
+
     /**
      * Checks if a new appointment overlaps with existing appointments for a specific customer.
      *
@@ -310,27 +444,33 @@ public class AddAppointmentViewController implements Initializable {
      */
 
     public static Boolean appointmentOverlap(LocalDateTime start, LocalDateTime end, int customerId) throws SQLException {
-        boolean overlap = false;
-        ObservableList<Appointment> appointments = DBAppointments.selectByCustomerId(customerId);
-
-        for (Appointment app : appointments) {
-            LocalDateTime appStart = app.getStart();
-            LocalDateTime appEnd = app.getEnd();
-
-            if ((start.isEqual(appStart) || end.isEqual(appEnd)) ||
-                    (start.isAfter(appStart) && start.isBefore(appEnd)) ||
-                    (end.isAfter(appStart) && end.isBefore(appEnd)) ||
-                    (start.isBefore(appStart) && end.isAfter(appEnd)))
-            {
-                overlap = true;
-                break;
-            }
-        }
-
-        return overlap;
+        return DBAppointments.hasOverlap(customerId, start, end, 0);
     }
 
 
+    /**
+     * Empties the form when it is shown again. The contacts, users and customers offered are read again from the
+     * caches, which hold the changes saved meanwhile, and the business hours are those of today.
+     */
+    @Override
+    public void reset() {
+        clearFields();
+        customerCombo.getSelectionModel().clearSelection();
+        cancelFreeSlotLoad();
+        freeSlotCombo.getItems().clear();
+        repeatCombo.setValue(DOES_NOT_REPEAT);
+        repeatUntilPicker.setValue(null);
+        try {
+            contactCombo.setItems(ReferenceDataCache.getContacts());
+            UserCombo.setItems(SessionStore.getUsers());
+            customerCombo.setItems(SessionStore.getCustomers());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        setStartCombo();
+        setEndCombo();
+    }
+
     /**
      * Initializes the controller, setting up various UI components and populating combo boxes with data.
      *
@@ -345,6 +485,9 @@ public class AddAppointmentViewController implements Initializable {
             setCustomerCombo();
             setStartCombo();
             setEndCombo();
+            setTimeComboFilter();
+            setRepeatCombo();
+            setFreeSlotCombo();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -1,15 +1,12 @@
 package controller;
 
-import DAO.DBCountries;
 import DAO.DBCustomers;
-import DAO.DBFirstLevelDivisions;
+import DAO.ReferenceDataCache;
 import helper.Alerts;
+import helper.Navigator;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
@@ -32,9 +29,8 @@ import java.util.ResourceBundle;
  * @author Elham Pazhakh
  * JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
-public class AddCustomerViewController implements Initializable {
+public class AddCustomerViewController implements Initializable, Navigator.Reusable {
     Stage stage;
-    Parent scene;
     /**
      * Text field for customer name input.
      */
@@ -77,13 +73,13 @@ public class AddCustomerViewController implements Initializable {
      */
     public void setCustomerCountryCombo() throws SQLException {
         customerCountryCombo.setPromptText("Pick a country");
-        ObservableList<Country> countries = DBCountries.select();
+        ObservableList<Country> countries = ReferenceDataCache.getCountries();
         customerCountryCombo.setItems(countries);
         customerCountryCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
                 selectedCountry = newValue;
                 try {
-                    ObservableList<FirstLevelDivision> divisions = DBFirstLevelDivisions.select(selectedCountry.getCountryId());
+                    ObservableList<FirstLevelDivision> divisions = ReferenceDataCache.getDivisions(selectedCountry.getCountryId());
                     customerDivisionCombo.setItems(divisions);
                 } catch (SQLException e) {
                     throw new RuntimeException(e);
@@ -114,9 +110,7 @@ public class AddCustomerViewController implements Initializable {
             Alerts.showSaveConfirmation("Customer added successfully!");
             clearFields();
             stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-            scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-            stage.setScene(new Scene(scene));
-            stage.show();
+            Navigator.show(stage, Navigator.MAIN_VIEW);
         }
     }
 
@@ -129,9 +123,7 @@ public class AddCustomerViewController implements Initializable {
     public void OnActionCancelCustomer(ActionEvent event) throws IOException {
         clearFields();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
@@ -154,12 +146,24 @@ public class AddCustomerViewController implements Initializable {
      */
     public void OnActionBackCustomer(ActionEvent event) throws IOException {
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
 
+    /**
+     * Empties the form when it is shown again, and offers the current countries.
+     */
+    @Override
+    public void reset() {
+        clearFields();
+        customerDivisionCombo.getItems().clear();
+        try {
+            customerCountryCombo.setItems(ReferenceDataCache.getCountries());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Initializes the controller, setting up various UI components and populating combo boxes with data.
      *
@@ -1,23 +1,24 @@
 package controller;
 
+import DAO.AppointmentReminders;
+import DAO.CalendarIndex;
 import DAO.DBAppointments;
+import DAO.DBAsync;
 import DAO.DBCustomers;
 import DAO.DBUsers;
+import DAO.RecurringAppointments;
+import DAO.SessionStore;
 import helper.Alerts;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import helper.KeysetPager;
+import helper.Navigator;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import model.Appointment;
 import model.Customer;
-import model.User;
+import model.Occurrence;
 
 import java.io.IOException;
 import java.net.URL;
@@ -26,9 +27,10 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The CustomerAppointmentViewController class is responsible for managing the customer and appointment view in the application.
@@ -37,10 +39,9 @@ import java.util.stream.Collectors;
  * @author Elham Pazhakh
  * JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
-public class CustomerAppointmentViewController implements Initializable {
+public class CustomerAppointmentViewController implements Initializable, Navigator.Reusable {
 
     Stage stage;
-    Parent scene;
     /**
      * Radio button for the default appointment view.
      */
@@ -58,7 +59,7 @@ public class CustomerAppointmentViewController implements Initializable {
      */
     public RadioButton appMonth;
     @FXML
-    private TableColumn<Customer, Integer> customerId;
+    private TableColumn<Customer, Number> customerId;
     @FXML
     private TableColumn<Customer, String> customerName;
     @FXML
@@ -68,9 +69,9 @@ public class CustomerAppointmentViewController implements Initializable {
     @FXML
     private TableColumn<Customer, String> phone;
     @FXML
-    private TableColumn<Customer, Integer> divisionId;
+    private TableColumn<Customer, Number> divisionId;
     @FXML
-    private TableColumn<Appointment, Integer> appIdCol;
+    private TableColumn<Appointment, Number> appIdCol;
     @FXML
     private TableColumn<Appointment, String>  titleCol;
     @FXML
@@ -84,20 +85,32 @@ public class CustomerAppointmentViewController implements Initializable {
     @FXML
     private TableColumn<Appointment, LocalDateTime> endCol;
     @FXML
-    private TableColumn<Appointment, Integer> customerIdCol;
+    private TableColumn<Appointment, Number> customerIdCol;
     @FXML
-    private TableColumn<Appointment, Integer> userIdCol;
+    private TableColumn<Appointment, Number> userIdCol;
     @FXML
-    private TableColumn<Appointment, Integer> contactIdCol;
+    private TableColumn<Appointment, Number> contactIdCol;
     @FXML
     private TableView<Customer> customerTableView;
     @FXML
     private TableView<Appointment> appTableView;
 
-    private ObservableList<Appointment> allAppointments;
-    private ObservableList<Appointment> filteredAppointments;
+    private KeysetPager<Customer> customerPager;
+    private KeysetPager<Appointment> appointmentPager;
     LoginViewController loginController = new LoginViewController();
     private String userName;
+    private final List<CompletableFuture<Void>> pendingLoads = new ArrayList<>();
+
+    /**
+     * Cancels the background loads that have not been delivered yet. Called before leaving this screen.
+     * The pages being read for the tables are left to finish, since the pagers are kept for the session.
+     */
+    private void cancelPendingLoads() {
+        for (CompletableFuture<Void> load : pendingLoads) {
+            load.cancel(true);
+        }
+        pendingLoads.clear();
+    }
 
     /**
      * Handles the "Log Out" action, navigating to the report view.
@@ -107,10 +120,9 @@ public class CustomerAppointmentViewController implements Initializable {
      */
     public void OnActionViewReports (ActionEvent event) throws IOException {
 
+        cancelPendingLoads();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/ReportView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.REPORT_VIEW);
     }
 
     /**
@@ -131,10 +143,9 @@ public class CustomerAppointmentViewController implements Initializable {
     @FXML
     public void OnActionAddCustomer(ActionEvent event)  throws IOException {
 
+        cancelPendingLoads();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/AddCustomerView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.ADD_CUSTOMER_VIEW);
     }
 
     /**
@@ -145,25 +156,21 @@ public class CustomerAppointmentViewController implements Initializable {
      * @throws SQLException If a database error occurs during customer retrieval.
      */
     public void OnActionUpdateCustomer(ActionEvent event) throws IOException, SQLException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/UpdateCustomerView.fxml"));
-        Parent root = loader.load();
-
-        UpdateCustomerViewController modifyController = loader.getController();
-
         Customer selectedCustomer = customerTableView.getSelectionModel().getSelectedItem();
         if(selectedCustomer==null) {
             Alerts.showSaveConfirmation("Please select a customer.");
         } else {
 
-            modifyController.setCustomer(selectedCustomer);
+            cancelPendingLoads();
             stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-            stage.setScene(new Scene(root));
-            stage.show();
+            UpdateCustomerViewController modifyController = Navigator.show(stage, Navigator.UPDATE_CUSTOMER_VIEW);
+            modifyController.setCustomer(selectedCustomer);
         }
     }
 
     /**
      * Handles the "Delete Customer" action, deleting a customer and associated appointments.
+     * If the customer has appointments, the user is asked whether to delete them together with the customer.
      *
      * @param actionEvent The action event triggered by the button click.
      * @throws SQLException If a database error occurs during customer or appointment deletion.
@@ -173,20 +180,19 @@ public class CustomerAppointmentViewController implements Initializable {
         if(selectedCustomer==null) {
             Alerts.showSaveConfirmation("Please select an customer.");
         } else {
-            ObservableList<Appointment> Appointments = DBAppointments.select();
-            ObservableList<Appointment> associatedAppointments = FXCollections.observableArrayList();
-            for(Appointment app: Appointments) {
-                if (app.getCustomerId() == selectedCustomer.getCustomerId()) {
-                    associatedAppointments.add(app);
-                }
-            }
-
-            if (associatedAppointments.size()>0){
+            int associatedAppointments = DBAppointments.countByCustomerId(selectedCustomer.getCustomerId());
+
+            if (associatedAppointments>0){
+                if (Alerts.showConfirmation(selectedCustomer.getCustomerName() + " has " + associatedAppointments
+                        + " appointment(s). Delete the customer and all of their appointments?")) {
+                    DBCustomers.deleteWithAppointments(selectedCustomer);
+                    Alerts.showSaveConfirmation("customer and " + associatedAppointments + " appointment(s) deleted successfully!");
+                } else {
                     Alerts.showSaveConfirmation("Deleted customer's appointments first.");
+                }
             }else {
                 DBCustomers.delete(selectedCustomer);
                 Alerts.showSaveConfirmation("customer deleted successfully!");
-                updateCustomerTableView();
             }
         }
     }
@@ -198,10 +204,9 @@ public class CustomerAppointmentViewController implements Initializable {
      * @throws IOException If an error occurs during navigation.
      */
     public void OnActionAddAppointment(ActionEvent event) throws IOException {
+        cancelPendingLoads();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/AddAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.ADD_APPOINTMENT_VIEW);
     }
 
     /**
@@ -213,19 +218,14 @@ public class CustomerAppointmentViewController implements Initializable {
      */
     public void OnActionUpdateAppointment(ActionEvent event) throws IOException, SQLException {
 
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/UpdateAppointmentView.fxml"));
-        Parent root = loader.load();
-
-        UpdateAppointmentViewController modifyController = loader.getController();
-
         Appointment selectedAppointment = appTableView.getSelectionModel().getSelectedItem();
         if(selectedAppointment==null) {
             Alerts.showSaveConfirmation("Please select an appointment.");
         } else {
-            modifyController.setAppointment(selectedAppointment);
+            cancelPendingLoads();
             stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-            stage.setScene(new Scene(root));
-            stage.show();
+            UpdateAppointmentViewController modifyController = Navigator.show(stage, Navigator.UPDATE_APPOINTMENT_VIEW);
+            modifyController.setAppointment(selectedAppointment);
         }
     }
 
@@ -240,36 +240,36 @@ public class CustomerAppointmentViewController implements Initializable {
         Appointment selectedAppointment = appTableView.getSelectionModel().getSelectedItem();
         if(selectedAppointment==null) {
             Alerts.showSaveConfirmation("Please select an appointment.");
+        } else if (selectedAppointment instanceof Occurrence) {
+            // An occurrence is not stored, so deleting it skips its date in the series
+            if (Alerts.showConfirmation("Cancel only the occurrence on " + selectedAppointment.getStart().toLocalDate()
+                    + " of recurring appointment ID " + selectedAppointment.getId() + "?")) {
+                RecurringAppointments.skip((Occurrence) selectedAppointment);
+            }
         } else {
             DBAppointments.delete(selectedAppointment);
             Alerts.showSaveConfirmation("Appointment ID " + selectedAppointment.getId() + " of type " + selectedAppointment.getType() + " was deleted successfully!");
-
-            filteredAppointments.remove(selectedAppointment);
-            updateAppointmentTableView();
-
-        }
-    }
-
-    /**
-     * Updates the customer table view with the latest data from the database.
-     */
-    private void updateCustomerTableView() {
-
-        try {
-            ObservableList<Customer> customers = DBCustomers.select();
-            customerTableView.setItems(customers);
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
         }
     }
 
     /**
-     * Updates the appointment table view with the latest data from the database.
+     * Shows the appointments starting between two dates in the appointment table, one page at a time.
+     * When the table is sorted by start, the pages are sliced from the calendar index; for any other sort
+     * the dates bound the query on Start directly, since it holds the user's wall time.
+     *
+     * @param view     The view the days belong to, kept for the session.
+     * @param firstDay The first day to show.
+     * @param lastDay  The last day to show.
      */
-    private void updateAppointmentTableView() throws SQLException {
-
-        allAppointments = DBAppointments.select();
-        appTableView.setItems(filteredAppointments);
+    private void showAppointmentsBetween(SessionStore.AppointmentView view, LocalDate firstDay, LocalDate lastDay) {
+
+        LocalDateTime from = firstDay.atStartOfDay();
+        LocalDateTime to = lastDay.plusDays(1).atStartOfDay();
+        appointmentPager.setQuery((after, sortProperty, descending, pageSize) -> "start".equals(sortProperty)
+                ? CalendarIndex.page(firstDay, lastDay, after, descending, pageSize)
+                : DBAppointments.selectPage(from, to, after, sortProperty, descending, pageSize),
+                (since, sortProperty) -> DBAppointments.selectChangedSince(from, to, since, "start".equals(sortProperty)));
+        SessionStore.setAppointmentView(view, from, to);
     }
 
     /**
@@ -279,18 +279,19 @@ public class CustomerAppointmentViewController implements Initializable {
      */
     public void OnActionDefault(ActionEvent actionEvent) {
 
-        filteredAppointments.setAll(allAppointments);
-
+        appointmentPager.setQuery((after, sortProperty, descending, pageSize) ->
+                DBAppointments.selectPage(null, null, after, sortProperty, descending, pageSize),
+                (since, sortProperty) -> DBAppointments.selectChangedSince(null, null, since, false));
+        SessionStore.setAppointmentView(SessionStore.AppointmentView.ALL, null, null);
     }
 
     /**
      * Handles the "Week" view selection, filtering appointments for the current week (Monday to Sunday).
      *
      * Lambda Expression Explanation:
-     * In this method, a lambda expression is used to filter the list of appointments for the current week.
-     * The lambda expression defines the filtering criteria based on the start date of each appointment.
-     * It checks if the appointment's start date is after the start of the current week (Monday) minus one day and
-     * before the end of the current week (Sunday) plus one day, effectively filtering appointments for the entire week.
+     * In this method, a lambda expression is passed to the appointment pager as the query for each page.
+     * It reads the appointments starting from Monday of the current week up to the end of Sunday,
+     * so the filtering is done by the database and only the rows shown are loaded.
      *
      * @param actionEvent The action event triggered by the radio button selection.
      */
@@ -300,43 +301,24 @@ public class CustomerAppointmentViewController implements Initializable {
         LocalDate startOfWeek = now.with(DayOfWeek.MONDAY);
         LocalDate endOfWeek = now.with(DayOfWeek.SUNDAY);
 
-        ObservableList<Appointment> weekAppointments = allAppointments
-                .stream()
-                .filter(appointment ->
-                        appointment.getStart().toLocalDate().isAfter(startOfWeek.minusDays(1)) &&
-                                appointment.getStart().toLocalDate().isBefore(endOfWeek.plusDays(1))
-                )
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-
-        filteredAppointments.setAll(weekAppointments);
+        showAppointmentsBetween(SessionStore.AppointmentView.WEEK, startOfWeek, endOfWeek);
     }
 
 
     /**
      * Handles the "Month" view selection, filtering appointments for the current month.
      *
-     * Lambda Expression Explanation:
-     * In this method, a lambda expression is used to filter the list of appointments for the current month.
-     * The lambda expression defines the filtering criteria based on the start date of each appointment.
-     * It checks if the appointment's start date corresponds to the same month as the current month.
-     * This effectively filters appointments for the entire current month.
+     * The appointments starting from the first to the last day of the current month are read
+     * page by page by the database, in the same way as the week view.
      *
      * @param actionEvent The action event triggered by the radio button selection.
-     * @throws SQLException If a database error occurs during appointment retrieval.
      */
-    public void OnActionMonth(ActionEvent actionEvent) throws SQLException {
+    public void OnActionMonth(ActionEvent actionEvent) {
 
         LocalDate now = LocalDate.now();
         YearMonth currentMonth = YearMonth.from(now);
 
-        ObservableList<Appointment> monthAppointments = allAppointments
-                .stream()
-                .filter(appointment ->
-                        YearMonth.from(appointment.getStart().toLocalDate()).equals(currentMonth)
-                )
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-
-        filteredAppointments.setAll(monthAppointments);
+        showAppointmentsBetween(SessionStore.AppointmentView.MONTH, currentMonth.atDay(1), currentMonth.atEndOfMonth());
 
     }
 
@@ -347,44 +329,33 @@ public class CustomerAppointmentViewController implements Initializable {
     }
 
     /**
-     * This method checks for upcoming appointments associated with the current user, where the time until the appointment
-     * is 15 minutes or less. If any such appointments are found, a confirmation dialog is shown to the user with details
-     * about the appointment. If there are no upcoming appointments within 15 minutes, a confirmation message is displayed.
-     *
-     * @throws SQLException If a database error occurs during data retrieval.
+     * Starts the reminders of the current user's appointments. For the rest of the session, a dialog is shown
+     * 15 minutes before each appointment of the user starts; appointments already within 15 minutes are shown at once.
+     * If there are none right now, a confirmation message is displayed.
+     * The user is looked up in the background and the dialogs are shown on the JavaFX Application Thread.
      */
-    void alertUserAppointment() throws SQLException {
+    void alertUserAppointment() {
         String userName = this.userName;
 
-        ObservableList<User> users = DBUsers.select();
-        int userId = -1;
-        for (User u : users) {
-            if (u.getUserName().equals(userName)) {
-                userId = u.getUserId();
-            }
-        }
-        if (userId != -1) {
-            ObservableList<Appointment> apps = DBAppointments.getAppointmentsByUserId(userId);
-            boolean upcomingAppointments = false;
-
-            for (Appointment app : apps) {
-                LocalDateTime appointmentStartTime = app.getStart();
-
-                LocalDateTime currentTime = LocalDateTime.now();
-                long minutesUntilAppointment = ChronoUnit.MINUTES.between(currentTime, appointmentStartTime);
-
-                if (minutesUntilAppointment >= 0 && minutesUntilAppointment <= 15) {
-                    Alerts.showSaveConfirmation(
-                            "Appointment ID " + app.getId() + " at " + appointmentStartTime + " is within 15 minutes."
-                    );
-                    upcomingAppointments = true;
-                }
+        pendingLoads.add(DBAsync.load(() -> DBUsers.getUserByName(userName), user -> {
+            if (user == null) {
+                return;
             }
+            AppointmentReminders.start(user.getUserId(), app -> Alerts.showSaveConfirmation(
+                    "Appointment ID " + app.getId() + " at " + app.getStart()
+                            + " is within 15 minutes."
+            ), () -> Alerts.showSaveConfirmation("There are no upcoming appointments within 15 minutes."));
+        }));
+    }
 
-            if (!upcomingAppointments) {
-                Alerts.showSaveConfirmation("There are no upcoming appointments within 15 minutes.");
-            }
-        }
+    /**
+     * Brings the tables up to date when this screen is shown again. The rows, the selected view and the sort
+     * are kept; only what other users changed meanwhile is read, and only when the rows are old enough.
+     */
+    @Override
+    public void reset() {
+        customerPager.refreshIfOlderThan(SessionStore.REFRESH_AFTER);
+        appointmentPager.refreshIfOlderThan(SessionStore.REFRESH_AFTER);
     }
 
     /**
@@ -396,44 +367,33 @@ public class CustomerAppointmentViewController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
-        try {
-            ObservableList<Customer> customers = DBCustomers.select();
-            customerTableView.setItems(customers);
-
-            customerId.setCellValueFactory(new PropertyValueFactory<>("customerId"));
-            customerName.setCellValueFactory(new PropertyValueFactory<>("customerName"));
-            address.setCellValueFactory(new PropertyValueFactory<>("address"));
-            postalCode.setCellValueFactory(new PropertyValueFactory<>("postalCode"));
-            phone.setCellValueFactory(new PropertyValueFactory<>("phone"));
-            divisionId.setCellValueFactory(new PropertyValueFactory<>("divisionId"));
-
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        try {
-            allAppointments = DBAppointments.select();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        filteredAppointments = FXCollections.observableArrayList(allAppointments);
-        appTableView.setItems(filteredAppointments);
-
-        appIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
-        descriptionCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-        locationCol.setCellValueFactory(new PropertyValueFactory<>("location"));
-        typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
-        startCol.setCellValueFactory(new PropertyValueFactory<>("start"));
-        endCol.setCellValueFactory(new PropertyValueFactory<>("end"));
-        customerIdCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
-        userIdCol.setCellValueFactory(new PropertyValueFactory<>("userId"));
-        contactIdCol.setCellValueFactory(new PropertyValueFactory<>("contactId"));
-
-        try {
-            alertUserAppointment();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+        KeysetPager.bindColumn(customerId, "customerId", Customer::customerIdProperty);
+        KeysetPager.bindColumn(customerName, "customerName", Customer::customerNameProperty);
+        KeysetPager.bindColumn(address, "address", Customer::addressProperty);
+        KeysetPager.bindColumn(postalCode, "postalCode", Customer::postalCodeProperty);
+        KeysetPager.bindColumn(phone, "phone", Customer::phoneProperty);
+        KeysetPager.bindColumn(divisionId, "divisionId", Customer::divisionIdProperty);
+
+        KeysetPager.bindColumn(appIdCol, "id", Appointment::idProperty);
+        KeysetPager.bindColumn(titleCol, "title", Appointment::titleProperty);
+        KeysetPager.bindColumn(descriptionCol, "description", Appointment::descriptionProperty);
+        KeysetPager.bindColumn(locationCol, "location", Appointment::locationProperty);
+        KeysetPager.bindColumn(typeCol, "type", Appointment::typeProperty);
+        KeysetPager.bindColumn(startCol, "start", Appointment::startProperty);
+        KeysetPager.bindColumn(endCol, "end", Appointment::endProperty);
+        KeysetPager.bindColumn(customerIdCol, "customerId", Appointment::customerIdProperty);
+        KeysetPager.bindColumn(userIdCol, "userId", Appointment::userIdProperty);
+        KeysetPager.bindColumn(contactIdCol, "contactId", Appointment::contactIdProperty);
+
+        // The rows are kept for the session, so showing this screen again reads only what changed meanwhile
+        customerPager = SessionStore.getCustomerPager();
+        customerPager.attach(customerTableView);
+        customerPager.refreshIfOlderThan(SessionStore.REFRESH_AFTER);
+        appointmentPager = SessionStore.getAppointmentPager();
+        appointmentPager.attach(appTableView);
+        appointmentPager.refreshIfOlderThan(SessionStore.REFRESH_AFTER);
+        appDefault.setSelected(SessionStore.getAppointmentView() == SessionStore.AppointmentView.ALL);
+        appWeek.setSelected(SessionStore.getAppointmentView() == SessionStore.AppointmentView.WEEK);
+        appMonth.setSelected(SessionStore.getAppointmentView() == SessionStore.AppointmentView.MONTH);
     }
 }
@@ -1,15 +1,15 @@
 package controller;
 
+import DAO.DBAsync;
 import DAO.DBUsers;
 import helper.ActivityLogger;
 import helper.Alerts;
-import javafx.collections.ObservableList;
+import helper.LoginThrottle;
+import helper.Navigator;
+import helper.PasswordHasher;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
@@ -38,13 +38,16 @@ public class LoginViewController implements Initializable {
     public Label usernameLabel;
     public Label passwordLabel;
     Stage stage;
-    Parent scene;
     public PasswordField loginPassword;
     @FXML
     public TextField loginUserName;
     public Label loginTimeZone;
     private ActivityLogger activityLogger;
     private ResourceBundle bundle;
+    /**
+     * Allows 5 attempts per user name and 20 attempts in total per minute.
+     */
+    private static final LoginThrottle loginThrottle = new LoginThrottle(5, 20, 60_000);
 
 
     /**
@@ -104,31 +107,53 @@ public class LoginViewController implements Initializable {
 
     /**
      * Handles the "Login" action when the user attempts to log in.
+     * Attempts beyond the throttle limit are refused without touching the database. Otherwise the user is looked up
+     * by name and the password is verified in the background; the login button stays disabled until the check has finished.
+     * A legacy plain text password is replaced with its hash once it has been verified.
      *
      * @param event The action event triggered by the login button.
-     * @throws SQLException If a database error occurs during user retrieval.
-     * @throws IOException If an error occurs during navigation.
      */
-    public void OnActionLogin(ActionEvent event) throws SQLException, IOException {
+    public void OnActionLogin(ActionEvent event) {
 
         String userName = loginUserName.getText();
         String passWord = loginPassword.getText();
 
-        ObservableList<User> users = DBUsers.select();
-        boolean loginSuccessful = false;
-
-        for(User user: users){
-            if(user.getUserName().equals(userName) && user.getPassword().equals(passWord)){
-                loginSuccessful = true;
-                log(userName, true);
-                navigateToNextView(userName, event);
-            }
-        }
-        if (!loginSuccessful) {
+        if (!loginThrottle.tryAcquire(userName)) {
             log(userName, false);
-            String invalidCredentialsError = bundle.getString("wrongUsernameOrPasswordMessage");
-            Alerts.showSaveConfirmation(invalidCredentialsError);
+            Alerts.showSaveConfirmation(bundle.getString("tooManyAttemptsMessage"));
+            return;
         }
+
+        loginButton.setDisable(true);
+        DBAsync.load(() -> {
+            User user = DBUsers.getUserByName(userName);
+            boolean verified = PasswordHasher.verify(passWord, (user != null) ? user.getPassword() : null);
+            if (verified && !PasswordHasher.isHashed(user.getPassword())) {
+                try {
+                    DBUsers.updatePassword(user.getUserId(), PasswordHasher.hash(passWord), userName);
+                } catch (SQLException e) {
+                    System.out.println("Error: could not replace the plain text password of user '" + userName + "'.");
+                }
+            }
+            return verified;
+        }, loginSuccessful -> {
+            loginButton.setDisable(false);
+            log(userName, loginSuccessful);
+            if (loginSuccessful) {
+                loginThrottle.reset(userName);
+                try {
+                    navigateToNextView(userName, event);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else {
+                String invalidCredentialsError = bundle.getString("wrongUsernameOrPasswordMessage");
+                Alerts.showSaveConfirmation(invalidCredentialsError);
+            }
+        }, error -> {
+            loginButton.setDisable(false);
+            error.printStackTrace();
+        });
     }
 
     /**
@@ -151,21 +176,18 @@ public class LoginViewController implements Initializable {
 
     /**
      * Navigates to the next view and passes the username to the next view's controller.
+     * The other screens are then parsed in the background, so switching to them later is immediate.
      *
      * @param userName The username to pass to the next view.
      * @param event    The action event associated with the navigation.
      * @throws IOException If an error occurs during navigation.
      */
-    private void navigateToNextView(String userName, ActionEvent event) throws IOException, SQLException {
+    private void navigateToNextView(String userName, ActionEvent event) throws IOException {
         stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        Parent root = loader.load();
-
-        CustomerAppointmentViewController controller = loader.getController();
+        CustomerAppointmentViewController controller = Navigator.show(stage, Navigator.MAIN_VIEW);
         controller.setUserName(userName);
         controller.alertUserAppointment();
-        stage.setScene(new Scene(root));
-        stage.show();
+        Navigator.preload();
     }
 
 
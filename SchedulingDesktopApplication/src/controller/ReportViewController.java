@@ -1,19 +1,17 @@
 package controller;
 
 import DAO.*;
-import helper.TimeUtils;
+import helper.Navigator;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 import model.Appointment;
+import model.AppointmentCount;
 import model.Contact;
 import model.Country;
 import model.FirstLevelDivision;
@@ -22,7 +20,16 @@ import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The `ReportViewController` class is responsible for managing the reporting view in the application.
@@ -30,19 +37,19 @@ import java.util.ResourceBundle;
  * @author Elham Pazhakh
  *  JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
-public class ReportViewController implements Initializable {
+public class ReportViewController implements Initializable, Navigator.Reusable {
 
     Stage stage;
-    Parent scene;
     public Label firstReportResult;
+    public TableView<String> typeMonthTableView;
     public TableView<Appointment> filteredAppTableView;
-    public TableColumn<Appointment, Integer> appIdCol;
+    public TableColumn<Appointment, Number> appIdCol;
     public TableColumn<Appointment, String> titleCol;
     public TableColumn<Appointment, String> descriptionCol;
     public TableColumn<Appointment, String> typeCol;
     public TableColumn<Appointment, LocalDateTime> startCol;
     public TableColumn<Appointment, LocalDateTime> endCol;
-    public TableColumn<Appointment, Integer> customerIdCol;
+    public TableColumn<Appointment, Number> customerIdCol;
     public ComboBox<Contact> pickContactCombo;
     public TableColumn<Appointment, String> locationCol;
     public Label secondReportResult;
@@ -58,20 +65,60 @@ public class ReportViewController implements Initializable {
     public ComboBox<Country> customerCountryCombo;
     public ComboBox<FirstLevelDivision> customerDivisionCombo;
     public Country selectedCountry;
+    private final List<CompletableFuture<Void>> pendingLoads = new ArrayList<>();
+    private final Map<String, long[]> typeMonthCounts = new TreeMap<>();
+    private boolean typeMonthCountsLoaded = false;
 
     /**
      * Sets the available options for the "Type" ComboBox in the first report.
-     *
-     * @throws SQLException If a database error occurs during data retrieval.
+     * The distinct types are loaded in the background and the options are filled in once they arrive.
      */
-    public void setAppTypeReportOneCombo() throws SQLException {
+    public void setAppTypeReportOneCombo() {
         appTypeReportOneCombo.setPromptText("Type");
-        ObservableList<String> types = FXCollections.observableArrayList();
-        ObservableList<Appointment> appointments = DBAppointments.select();
-        for (Appointment app: appointments) {
-            types.add(app.getType());
+        pendingLoads.add(DBAsync.load(DBReports::selectTypes, types -> appTypeReportOneCombo.setItems(types)));
+    }
+
+    /**
+     * Sets up the type-by-month table of the first report and fills it with the counts for the current year.
+     * The counts come from a single grouped query; each row is a type and each column a month.
+     */
+    public void setTypeMonthTable() {
+        TableColumn<String, String> typeColumn = new TableColumn<>("Type");
+        typeColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue()));
+        typeColumn.setPrefWidth(80);
+        typeMonthTableView.getColumns().add(typeColumn);
+
+        for (Month month : Month.values()) {
+            int index = month.getValue() - 1;
+            TableColumn<String, Long> monthColumn = new TableColumn<>(month.getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+            monthColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(typeMonthCounts.get(cellData.getValue())[index]));
+            monthColumn.setPrefWidth(36);
+            typeMonthTableView.getColumns().add(monthColumn);
         }
-        appTypeReportOneCombo.setItems(types);
+
+        TableColumn<String, Long> totalColumn = new TableColumn<>("Total");
+        totalColumn.setCellValueFactory(cellData -> new SimpleObjectProperty<>(typeMonthCounts.get(cellData.getValue())[12]));
+        totalColumn.setPrefWidth(44);
+        typeMonthTableView.getColumns().add(totalColumn);
+
+        loadTypeMonthCounts();
+    }
+
+    /**
+     * Loads the counts of the type-by-month table for the current year in the background and shows them once they arrive.
+     */
+    private void loadTypeMonthCounts() {
+        typeMonthCountsLoaded = false;
+        pendingLoads.add(DBAsync.load(() -> DBReports.countByMonthAndType(Year.now().getValue()), counts -> {
+            typeMonthCounts.clear();
+            for (AppointmentCount count : counts) {
+                long[] row = typeMonthCounts.computeIfAbsent(count.getType(), type -> new long[13]);
+                row[count.getMonth() - 1] += count.getCount();
+                row[12] += count.getCount();
+            }
+            typeMonthCountsLoaded = true;
+            typeMonthTableView.setItems(FXCollections.observableArrayList(typeMonthCounts.keySet()));
+        }));
     }
 
     /**
@@ -94,18 +141,20 @@ public class ReportViewController implements Initializable {
      */
     public void OnActionBackBtn(ActionEvent event) throws IOException {
 
+        for (CompletableFuture<Void> load : pendingLoads) {
+            load.cancel(true);
+        }
+        pendingLoads.clear();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
      * Handles the action to view the first report's result and display it.
      *
      * This method retrieves the selected month and appointment type from ComboBoxes in the user interface.
-     * It then queries the database to find matching appointments based on the selected month and type.
-     * The lambda expression filters appointments based on their type and counts the matching appointments.
+     * The count for the current year is read from the type-by-month table. If the table has not been loaded yet,
+     * the database is queried in the background for the appointments of that type starting in the selected month.
      *
      * @param event The action event triggered by the button click.
      */
@@ -115,16 +164,17 @@ public class ReportViewController implements Initializable {
         String selectedType = appTypeReportOneCombo.getSelectionModel().getSelectedItem();
 
         if (selectedMonth != null && selectedType != null) {
-            try {
-                ObservableList<Appointment> matchingAppointments = DBAppointments.getAppointmentsByMonth(selectedMonth);
-                long appointmentCount = matchingAppointments.stream()
-                        .filter(appointment -> appointment.getType().equals(selectedType))
-                        .count();
-
+            Month month = Month.valueOf(selectedMonth.toUpperCase());
+            if (typeMonthCountsLoaded) {
+                long[] row = typeMonthCounts.get(selectedType);
+                long appointmentCount = (row != null) ? row[month.getValue() - 1] : 0;
                 firstReportResult.setText("Total " + selectedType + " Appointments in " + selectedMonth + ": " + appointmentCount);
-            } catch (SQLException e) {
-                e.printStackTrace();
+                return;
             }
+            int year = Year.now().getValue();
+            pendingLoads.add(DBAsync.load(() -> DBAppointments.getAppointmentsByMonth(year, month, selectedType),
+                    matchingAppointments -> firstReportResult.setText("Total " + selectedType + " Appointments in "
+                            + selectedMonth + ": " + matchingAppointments.size())));
         }
     }
 
@@ -135,7 +185,7 @@ public class ReportViewController implements Initializable {
      */
     public void setContactCombo() throws SQLException {
         pickContactCombo.setPromptText("Contact");
-        ObservableList<Contact> contacts = DBContacts.select();
+        ObservableList<Contact> contacts = ReferenceDataCache.getContacts();
         pickContactCombo.setItems(contacts);
         pickContactCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -169,13 +219,13 @@ public class ReportViewController implements Initializable {
      */
     public void setCustomerCountryCombo() throws SQLException {
         customerCountryCombo.setPromptText("Pick a country");
-        ObservableList<Country> countries = DBCountries.select();
+        ObservableList<Country> countries = ReferenceDataCache.getCountries();
         customerCountryCombo.setItems(countries);
         customerCountryCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
                 selectedCountry = newValue;
                 try {
-                    ObservableList<FirstLevelDivision> divisions = DBFirstLevelDivisions.select(selectedCountry.getCountryId());
+                    ObservableList<FirstLevelDivision> divisions = ReferenceDataCache.getDivisions(selectedCountry.getCountryId());
                     customerDivisionCombo.setItems(divisions);
                 } catch (SQLException e) {
                     throw new RuntimeException(e);
@@ -188,7 +238,7 @@ public class ReportViewController implements Initializable {
      * Handles the action to view the second report's result and display it.
      *
      * This method retrieves the selected division from a ComboBox in the user interface.
-     * It then queries the database to count the number of customers belonging to the selected division.
+     * It then counts the customers of the session belonging to the selected division.
      * The lambda expression filters the list of customers to include only those with the selected division ID and counts them.
      *
      * @param event The action event triggered by the button click.
@@ -196,13 +246,39 @@ public class ReportViewController implements Initializable {
      */
     public void OnActionViewSecondReportResult(ActionEvent event) throws SQLException {
         FirstLevelDivision division = customerDivisionCombo.getSelectionModel().getSelectedItem();
-        long count = DBCustomers.select()
+        long count = SessionStore.getCustomers()
                 .stream()
                 .filter(customer -> customer.getDivisionId() == division.getDivisionId())
                 .count();
         secondReportResult.setText("Total Customers: " + count);
     }
 
+    /**
+     * Clears the results of the earlier visit when the screen is shown again, and loads the types, the counts,
+     * the contacts and the countries again, since appointments and customers may have been saved meanwhile.
+     */
+    @Override
+    public void reset() {
+        firstReportResult.setText("");
+        secondReportResult.setText("");
+        appTypeReportOneCombo.getSelectionModel().clearSelection();
+        monthReportOneCombo.getSelectionModel().clearSelection();
+        pickContactCombo.getSelectionModel().clearSelection();
+        customerCountryCombo.getSelectionModel().clearSelection();
+        customerDivisionCombo.getItems().clear();
+        filteredAppTableView.getItems().clear();
+        selectedContact = null;
+        selectedCountry = null;
+        pendingLoads.add(DBAsync.load(DBReports::selectTypes, types -> appTypeReportOneCombo.setItems(types)));
+        loadTypeMonthCounts();
+        try {
+            pickContactCombo.setItems(ReferenceDataCache.getContacts());
+            customerCountryCombo.setItems(ReferenceDataCache.getCountries());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Initializes the controller and sets up the initial state of the user interface.
      *
@@ -212,6 +288,7 @@ public class ReportViewController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         setMonthReportOneCombo();
+        setTypeMonthTable();
         try {
             setCustomerCountryCombo();
             setAppTypeReportOneCombo();
@@ -220,20 +297,15 @@ public class ReportViewController implements Initializable {
             throw new RuntimeException(e);
         }
 
-        appIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        titleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
-        descriptionCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-        locationCol.setCellValueFactory(new PropertyValueFactory<>("location"));
-        typeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
-        startCol.setCellValueFactory(cellData -> new SimpleObjectProperty<>(
-                TimeUtils.toSystemDefault(cellData.getValue().getStart())
-        ));
-
-        endCol.setCellValueFactory(cellData -> new SimpleObjectProperty<>(
-                TimeUtils.toSystemDefault(cellData.getValue().getEnd())
-        ));
+        appIdCol.setCellValueFactory(cellData -> cellData.getValue().idProperty());
+        titleCol.setCellValueFactory(cellData -> cellData.getValue().titleProperty());
+        descriptionCol.setCellValueFactory(cellData -> cellData.getValue().descriptionProperty());
+        locationCol.setCellValueFactory(cellData -> cellData.getValue().locationProperty());
+        typeCol.setCellValueFactory(cellData -> cellData.getValue().typeProperty());
+        startCol.setCellValueFactory(cellData -> cellData.getValue().startProperty());
+        endCol.setCellValueFactory(cellData -> cellData.getValue().endProperty());
 
-        customerIdCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
+        customerIdCol.setCellValueFactory(cellData -> cellData.getValue().customerIdProperty());
 
     }
 }
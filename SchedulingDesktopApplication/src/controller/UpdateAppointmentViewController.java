@@ -1,18 +1,20 @@
 package controller;
 
+import DAO.AvailabilityMatrix;
 import DAO.DBAppointments;
+import DAO.DBAsync;
 import DAO.DBContacts;
-import DAO.DBCustomers;
-import DAO.DBUsers;
+import DAO.RecurringAppointments;
+import DAO.ReferenceDataCache;
+import DAO.SessionStore;
 import helper.Alerts;
+import helper.Navigator;
+import helper.SlotSchedule;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
@@ -21,6 +23,8 @@ import javafx.stage.Stage;
 import model.Appointment;
 import model.Contact;
 import model.Customer;
+import model.Occurrence;
+import model.RecurrenceRule;
 import model.User;
 
 import java.io.IOException;
@@ -30,10 +34,10 @@ import java.time.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static DAO.DBContacts.getContactById;
-import static DAO.DBCustomers.getCustomerById;
-import static DAO.DBUsers.getUserById;
 
 /**
  * Controller for the appointment update view. Handles updating existing appointments.
@@ -41,10 +45,9 @@ import static DAO.DBUsers.getUserById;
  * @author Elham Pazhakh
  * JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
-public class UpdateAppointmentViewController implements Initializable {
+public class UpdateAppointmentViewController implements Initializable, Navigator.Reusable {
 
     Stage stage;
-    Parent scene;
     public ComboBox<LocalTime> endCombo;
     public ComboBox<LocalTime> startCombo;
     public TextField titleTxt;
@@ -60,8 +63,18 @@ public class UpdateAppointmentViewController implements Initializable {
     private ComboBox<Customer> customerCombo;
     @FXML
     private DatePicker datePicker;
+    @FXML
+    private ComboBox<String> repeatCombo;
+    @FXML
+    private DatePicker repeatUntilPicker;
+    private static final String DOES_NOT_REPEAT = "Does not repeat";
+    private List<LocalTime> businessStartTimes = new ArrayList<>();
+    private List<LocalTime> businessEndTimes = new ArrayList<>();
     private static Appointment appointment;
     private LocalDate selectedDate;
+    private CompletableFuture<Void> timeFilterLoad;
+    private long freeSlots;
+    private boolean freeSlotsLoaded = false;
 
 
     /**
@@ -72,24 +85,39 @@ public class UpdateAppointmentViewController implements Initializable {
      */
     public void setAppointment(Appointment selectedAppointment) throws SQLException {
 
-        appointment = selectedAppointment;
+        // The selected row is shared with the main table and the indexes, so the form edits its own copy; the saved
+        // values reach the shared rows through the DBAppointments change listeners.
+        // An occurrence of a recurring appointment stands for its series, so the form edits the stored first occurrence.
+        Appointment first = (selectedAppointment instanceof Occurrence)
+                ? RecurringAppointments.getFirstOccurrence(selectedAppointment.getId()) : null;
+        if (first != null) {
+            appointment = first;
+        } else {
+            appointment = (selectedAppointment != null) ? new Appointment(selectedAppointment) : null;
+        }
 
-        if(selectedAppointment==null){
+        if(appointment==null){
             return;
         }else {
-            appointmentIdTxt.setText(String.valueOf(selectedAppointment.getId()));
-            titleTxt.setText(selectedAppointment.getTitle());
-            descriptionTxt.setText(selectedAppointment.getDescription());
-            locationTxt.setText(selectedAppointment.getLocation());
-            typeTxt.setText(selectedAppointment.getType());
-
-            startCombo.setValue(selectedAppointment.getStart().toLocalTime());
-            endCombo.setValue(selectedAppointment.getEnd().toLocalTime());
-            datePicker.setValue(selectedAppointment.getStart().toLocalDate());
-
-            contactCombo.setValue(getContactById(selectedAppointment.getContactId()));
-            UserCombo.setValue(getUserById(selectedAppointment.getUserId()));
-            customerCombo.setValue(getCustomerById(selectedAppointment.getCustomerId()));
+            appointmentIdTxt.setText(String.valueOf(appointment.getId()));
+            titleTxt.setText(appointment.getTitle());
+            descriptionTxt.setText(appointment.getDescription());
+            locationTxt.setText(appointment.getLocation());
+            typeTxt.setText(appointment.getType());
+
+            startCombo.setValue(appointment.getStart().toLocalTime());
+            endCombo.setValue(appointment.getEnd().toLocalTime());
+            datePicker.setValue(appointment.getStart().toLocalDate());
+
+            contactCombo.setValue(getContactById(appointment.getContactId()));
+            UserCombo.setValue(SessionStore.getUser(appointment.getUserId()));
+            customerCombo.setValue(SessionStore.getCustomer(appointment.getCustomerId()));
+
+            RecurrenceRule rule = RecurringAppointments.getRule(appointment.getId());
+            if (rule != null) {
+                repeatCombo.setValue(rule.getFrequency().name().charAt(0) + rule.getFrequency().name().substring(1).toLowerCase());
+                repeatUntilPicker.setValue(rule.getUntil());
+            }
             System.out.println("inside setAppointment: " + appointment);
         }
     }
@@ -101,10 +129,9 @@ public class UpdateAppointmentViewController implements Initializable {
      * @throws IOException If there is an issue with loading the view.
      */
     public void OnActionBackAppointment(ActionEvent event) throws IOException {
+        cancelTimeFilterLoad();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
@@ -114,10 +141,9 @@ public class UpdateAppointmentViewController implements Initializable {
      * @throws IOException If there is an issue with loading the view.
      */
     public void OnActionCancelAppointment(ActionEvent event) throws IOException {
+        cancelTimeFilterLoad();
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
 
@@ -162,7 +188,7 @@ public class UpdateAppointmentViewController implements Initializable {
         LocalTime endTime = endCombo.getValue();
 
         LocalDateTime start = LocalDateTime.of(selectedDate, startTime);
-        LocalDateTime end = LocalDateTime.of(selectedDate, endTime);
+        LocalDateTime end = SlotSchedule.endOn(selectedDate, endTime);
 
         appointment.setTitle(title);
         appointment.setDescription(description);
@@ -175,16 +201,23 @@ public class UpdateAppointmentViewController implements Initializable {
         appointment.setEnd(end);
         appointment.setLastUpdated(LocalDateTime.now());
 
+        RecurrenceRule oldRule = RecurringAppointments.getRule(appointment.getId());
+        RecurrenceRule rule = selectedRecurrenceRule(oldRule != null ? oldRule.getExceptions() : Set.of());
         if (updatedAppointmentOverlap(start, end, selectedCustomer.getCustomerId())) {
             Alerts.showSaveConfirmation("Time slot clash! Please choose a different time.");
+        } else if (rule != null && end.isAfter(start) && DBAppointments.hasSeriesOverlap(selectedCustomer.getCustomerId(), start, end, rule, appointment.getId())) {
+            Alerts.showSaveConfirmation("Time slot clash! A later occurrence overlaps another appointment.");
         } else if(Alerts.AppointmentErrorHandling(title, description, location, type) && Alerts.appointmentTimingError(start, end)){
 
             DBAppointments.update(appointment);
+            if (rule != null) {
+                RecurringAppointments.save(appointment, rule);
+            } else if (oldRule != null) {
+                RecurringAppointments.stopRepeating(appointment);
+            }
 
             stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-            scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-            stage.setScene(new Scene(scene));
-            stage.show();
+            Navigator.show(stage, Navigator.MAIN_VIEW);
         }
     }
 
@@ -195,7 +228,7 @@ public class UpdateAppointmentViewController implements Initializable {
      */
     public void setContactCombo() throws SQLException {
         contactCombo.setPromptText("Pick a contact");
-        ObservableList<Contact> contacts = DBContacts.select();
+        ObservableList<Contact> contacts = ReferenceDataCache.getContacts();
         contactCombo.setItems(contacts);
         contactCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -213,7 +246,7 @@ public class UpdateAppointmentViewController implements Initializable {
      */
     public void setUserCombo() throws SQLException {
         UserCombo.setPromptText("Pick a user");
-        ObservableList<User> users = DBUsers.select();
+        ObservableList<User> users = SessionStore.getUsers();
         UserCombo.setItems(users);
         UserCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -229,7 +262,7 @@ public class UpdateAppointmentViewController implements Initializable {
      */
     public void setCustomerCombo() throws SQLException {
         customerCombo.setPromptText("Pick a customer");
-        ObservableList<Customer> customers = DBCustomers.select();
+        ObservableList<Customer> customers = SessionStore.getCustomers();
         customerCombo.setItems(customers);
         customerCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -240,82 +273,113 @@ public class UpdateAppointmentViewController implements Initializable {
 
     /**
      * Initializes the start time combo box in the UI, providing a list of available appointment start times
-     * within business hours.
+     * within business hours on the chosen date, or today if none is chosen.
      */
     public void setStartCombo() {
         startCombo.setPromptText("Pick appointment's start");
-
-        ZoneId userTimeZone = ZoneId.systemDefault();
-        ZoneId estZone = ZoneId.of("America/New_York");
-
-        ZonedDateTime startEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(8, 0), estZone);
-        ZonedDateTime endEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(21, 30), estZone);
-
-        ZonedDateTime startUserTime = startEst.withZoneSameInstant(userTimeZone);
-        ZonedDateTime endUserTime = endEst.withZoneSameInstant(userTimeZone);
-
-        LocalTime businessHoursStartUser = startUserTime.toLocalTime();
-        LocalTime businessHoursEndUser = endUserTime.toLocalTime();
-
-        List<LocalTime> availableHours = new ArrayList<>();
-        LocalTime currentHour = businessHoursStartUser;
-
-        while (true) {
-            availableHours.add(currentHour);
-            if (currentHour.equals(businessHoursEndUser)) {
-                break;
-            }
-            currentHour = currentHour.plusMinutes(30);
-
-            if (currentHour.equals(LocalTime.MIDNIGHT)) {
-                currentHour = LocalTime.of(0, 0);
-            }
-        }
-
-        ObservableList<LocalTime> hours = FXCollections.observableArrayList(availableHours);
-        startCombo.setItems(hours);
+        businessStartTimes = SlotSchedule.of(datePicker.getValue()).getStartTimes();
+        startCombo.setItems(FXCollections.observableArrayList(businessStartTimes));
     }
 
-
     /**
      * Initializes the end time combo box in the UI, providing a list of available appointment end times
-     * within business hours.
+     * within business hours on the chosen date, or today if none is chosen.
      */
     public void setEndCombo(){
         endCombo.setPromptText("Pick appointment's end");
+        businessEndTimes = SlotSchedule.of(datePicker.getValue()).getEndTimes();
+        endCombo.setItems(FXCollections.observableArrayList(businessEndTimes));
+    }
 
-        ZoneId userTimeZone = ZoneId.systemDefault();
-
-        ZoneId estZone = ZoneId.of("America/New_York");
-
-        ZonedDateTime startEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(8, 30), estZone);
-        ZonedDateTime endEst = ZonedDateTime.of(LocalDate.now(), LocalTime.of(22, 0), estZone);
-
-        ZonedDateTime startUserTime = startEst.withZoneSameInstant(userTimeZone);
-        ZonedDateTime endUserTime = endEst.withZoneSameInstant(userTimeZone);
 
-        LocalTime businessHoursStartUser = startUserTime.toLocalTime();
-        LocalTime businessHoursEndUser = endUserTime.toLocalTime();
+    /**
+     * Initializes the repeat combo box in the UI with the ways an appointment can repeat.
+     */
+    public void setRepeatCombo() {
+        repeatCombo.setItems(FXCollections.observableArrayList(DOES_NOT_REPEAT, "Daily", "Weekly", "Monthly"));
+        repeatCombo.valueProperty().addListener((observable, oldValue, newValue) ->
+                repeatUntilPicker.setDisable(newValue == null || newValue.equals(DOES_NOT_REPEAT)));
+        repeatCombo.setValue(DOES_NOT_REPEAT);
+        repeatUntilPicker.setDisable(true);
+    }
 
-        List<LocalTime> availableHours = new ArrayList<>();
-        LocalTime currentHour = businessHoursStartUser;
+    /**
+     * Builds the rule chosen in the repeat controls.
+     *
+     * @param exceptions The dates to skip, kept from an earlier rule.
+     * @return The rule, or null if the appointment does not repeat.
+     */
+    private RecurrenceRule selectedRecurrenceRule(Set<LocalDate> exceptions) {
+        String repeat = repeatCombo.getValue();
+        if (repeat == null || repeat.equals(DOES_NOT_REPEAT)) {
+            return null;
+        }
+        return new RecurrenceRule(RecurrenceRule.Frequency.valueOf(repeat.toUpperCase()), 1,
+                repeatUntilPicker.getValue(), exceptions);
+    }
 
-        while (true) {
-            availableHours.add(currentHour);
-            if (currentHour.equals(businessHoursEndUser)) {
-                break;
-            }
-            currentHour = currentHour.plusMinutes(30);
+    /**
+     * Makes the start and end combo boxes offer only the times at which the chosen customer and contact are free
+     * on the chosen date, and the end combo box only the ends that do not run into a booking after the chosen start.
+     */
+    public void setTimeComboFilter() {
+        customerCombo.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(true));
+        contactCombo.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(true));
+        datePicker.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(true));
+        startCombo.valueProperty().addListener((observable, oldValue, newValue) -> filterTimeCombos(false));
+    }
 
-            if (currentHour.equals(LocalTime.MIDNIGHT)) {
-                currentHour = LocalTime.of(0, 0);
+    /**
+     * Sets the items of the time combo boxes from the free half hours of the chosen date. The free half hours may
+     * have to be read from the database, so they are loaded in the background and the business hours are offered
+     * until they arrive, or if they cannot be read. A change of the start only filters the end times again.
+     *
+     * @param includeStart True to filter the start times as well as the end times.
+     */
+    private void filterTimeCombos(boolean includeStart) {
+        Customer selectedCustomer = customerCombo.getValue();
+        Contact selectedContact = contactCombo.getValue();
+        LocalDate selectedDate = datePicker.getValue();
+        if (!includeStart) {
+            if (freeSlotsLoaded) {
+                endCombo.setItems(FXCollections.observableArrayList(
+                        AvailabilityMatrix.freeEndTimes(freeSlots, startCombo.getValue(), businessEndTimes)));
             }
+            return;
         }
-
-        ObservableList<LocalTime> hours = FXCollections.observableArrayList(availableHours);
-        endCombo.setItems(hours);
+        cancelTimeFilterLoad();
+        SlotSchedule schedule = SlotSchedule.of(selectedDate);
+        businessStartTimes = schedule.getStartTimes();
+        businessEndTimes = schedule.getEndTimes();
+        startCombo.setItems(FXCollections.observableArrayList(businessStartTimes));
+        endCombo.setItems(FXCollections.observableArrayList(businessEndTimes));
+        if (selectedDate == null || (selectedCustomer == null && selectedContact == null)) {
+            return;
+        }
+        int customerId = selectedCustomer != null ? selectedCustomer.getCustomerId() : 0;
+        int contactId = selectedContact != null ? selectedContact.getContactId() : 0;
+        int excludeAppointmentId = appointment != null ? appointment.getId() : 0;
+        timeFilterLoad = DBAsync.load(() -> AvailabilityMatrix.freeSlots(customerId, contactId, selectedDate, excludeAppointmentId),
+                free -> {
+                    freeSlots = free;
+                    freeSlotsLoaded = true;
+                    startCombo.setItems(FXCollections.observableArrayList(AvailabilityMatrix.freeStartTimes(free, businessStartTimes)));
+                    endCombo.setItems(FXCollections.observableArrayList(
+                            AvailabilityMatrix.freeEndTimes(free, startCombo.getValue(), businessEndTimes)));
+                },
+                error -> System.out.println("Could not read the free times of " + selectedDate + ": " + error.getMessage()));
     }
 
+    /**
+     * Cancels the free time load that is still running, if any, and forgets the free times of the earlier choices.
+     */
+    private void cancelTimeFilterLoad() {
+        if (timeFilterLoad != null) {
+            timeFilterLoad.cancel(true);
+            timeFilterLoad = null;
+        }
+        freeSlotsLoaded = false;
+    }
 
     /**
      * Checks if an updated appointment overlaps with existing appointments for a specific customer. This method
@@ -329,25 +393,38 @@ public class UpdateAppointmentViewController implements Initializable {
      * @throws SQLException If a database error occurs during data retrieval.
      */
     public static Boolean updatedAppointmentOverlap(LocalDateTime start, LocalDateTime end, int customerId) throws SQLException {
-        boolean overlap = false;
-        ObservableList<Appointment> appointments = DBAppointments.selectByCustomerId(customerId);
-        appointments.remove(appointment);
-
-        for (Appointment app : appointments) {
-            LocalDateTime appStart = app.getStart();
-            LocalDateTime appEnd = app.getEnd();
-
-            if ((start.isEqual(appStart) || end.isEqual(appEnd)) ||
-                    (start.isAfter(appStart) && start.isBefore(appEnd)) ||
-                    (end.isAfter(appStart) && end.isBefore(appEnd)) ||
-                    (start.isBefore(appStart) && end.isAfter(appEnd)))
-            {
-                overlap = true;
-                break;
-            }
-        }
+        return DBAppointments.hasOverlap(customerId, start, end, appointment.getId());
+    }
 
-        return overlap;
+    /**
+     * Empties the form when it is shown again, before the next appointment is set. The contacts, users and customers
+     * offered are read again from the caches, and the business hours are those of today.
+     */
+    @Override
+    public void reset() {
+        appointment = null;
+        appointmentIdTxt.clear();
+        titleTxt.clear();
+        descriptionTxt.clear();
+        locationTxt.clear();
+        typeTxt.clear();
+        contactCombo.getSelectionModel().clearSelection();
+        UserCombo.getSelectionModel().clearSelection();
+        customerCombo.getSelectionModel().clearSelection();
+        startCombo.getSelectionModel().clearSelection();
+        endCombo.getSelectionModel().clearSelection();
+        datePicker.setValue(null);
+        repeatCombo.setValue(DOES_NOT_REPEAT);
+        repeatUntilPicker.setValue(null);
+        try {
+            contactCombo.setItems(ReferenceDataCache.getContacts());
+            UserCombo.setItems(SessionStore.getUsers());
+            customerCombo.setItems(SessionStore.getCustomers());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        setStartCombo();
+        setEndCombo();
     }
 
     /**
@@ -364,6 +441,8 @@ public class UpdateAppointmentViewController implements Initializable {
             setCustomerCombo();
             setStartCombo();
             setEndCombo();
+            setTimeComboFilter();
+            setRepeatCombo();
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -3,15 +3,13 @@ package controller;
 import DAO.DBCountries;
 import DAO.DBCustomers;
 import DAO.DBFirstLevelDivisions;
+import DAO.ReferenceDataCache;
 import helper.Alerts;
-import helper.TimeUtils;
+import helper.Navigator;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
@@ -35,10 +33,9 @@ import static DAO.DBFirstLevelDivisions.getCustomerCountryId;
  * @author Elham Pazhakh
  * JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
-public class UpdateCustomerViewController implements Initializable {
+public class UpdateCustomerViewController implements Initializable, Navigator.Reusable {
 
     Stage stage;
-    Parent scene;
     @FXML
     public TextField customerIdTxt;
     @FXML
@@ -58,13 +55,15 @@ public class UpdateCustomerViewController implements Initializable {
 
     /**
      * Sets the provided customer's data in the form fields for updating.
+     * The form edits a copy of the customer, since the selected row is shared with the main table; the saved values
+     * reach it through the DBCustomers change listeners.
      *
      * @param selectedCustomer The customer to be updated.
      * @throws SQLException If a database error occurs during data retrieval.
      */
     public void setCustomer(Customer selectedCustomer) throws SQLException {
 
-        this.customer = selectedCustomer;
+        this.customer = (selectedCustomer != null) ? new Customer(selectedCustomer) : null;
         if(selectedCustomer==null){
             return;
         }else {
@@ -95,9 +94,6 @@ public class UpdateCustomerViewController implements Initializable {
         Country selectedCountry = customerCountryCombo.getSelectionModel().getSelectedItem();
         FirstLevelDivision selectedDivision = customerDivisionCombo.getSelectionModel().getSelectedItem();
 
-        LocalDateTime currentTime = LocalDateTime.now();
-        LocalDateTime lastUpdateUTC = TimeUtils.toUTC(currentTime);
-
         this.customer.setCustomerName(customerName);
         this.customer.setAddress(address);
         this.customer.setPostalCode(postalCode);
@@ -110,9 +106,7 @@ public class UpdateCustomerViewController implements Initializable {
             Alerts.showSaveConfirmation("Customer updated successfully!");
 
             stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-            scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-            stage.setScene(new Scene(scene));
-            stage.show();
+            Navigator.show(stage, Navigator.MAIN_VIEW);
         }
     }
 
@@ -124,9 +118,7 @@ public class UpdateCustomerViewController implements Initializable {
      */
     public void OnActionCancelCustomer(ActionEvent event) throws IOException {
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
@@ -137,9 +129,7 @@ public class UpdateCustomerViewController implements Initializable {
      */
     public void OnActionBackCustomer(ActionEvent event) throws IOException {
         stage = (Stage) ((Button)event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(getClass().getResource("/view/CustomerAndAppointmentView.fxml"));
-        stage.setScene(new Scene(scene));
-        stage.show();
+        Navigator.show(stage, Navigator.MAIN_VIEW);
     }
 
     /**
@@ -153,13 +143,13 @@ public class UpdateCustomerViewController implements Initializable {
      */
     public void setCustomerCountryCombo() throws SQLException {
         customerCountryCombo.setPromptText("Pick a country");
-        ObservableList<Country> countries = DBCountries.select();
+        ObservableList<Country> countries = ReferenceDataCache.getCountries();
         customerCountryCombo.setItems(countries);
         customerCountryCombo.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
                 selectedCountry = newValue;
                 try {
-                    ObservableList<FirstLevelDivision> divisions = DBFirstLevelDivisions.select(selectedCountry.getCountryId());
+                    ObservableList<FirstLevelDivision> divisions = ReferenceDataCache.getDivisions(selectedCountry.getCountryId());
                     customerDivisionCombo.setItems(divisions);
                 } catch (SQLException e) {
                     throw new RuntimeException(e);
@@ -168,6 +158,27 @@ public class UpdateCustomerViewController implements Initializable {
         });
     }
 
+    /**
+     * Empties the form when it is shown again, before the next customer is set, and offers the current countries.
+     */
+    @Override
+    public void reset() {
+        customer = null;
+        customerIdTxt.clear();
+        customerNameTxt.clear();
+        customerAddressTxt.clear();
+        customerPostalTxt.clear();
+        customerPhoneTxt.clear();
+        customerCountryCombo.getSelectionModel().clearSelection();
+        customerDivisionCombo.getSelectionModel().clearSelection();
+        customerDivisionCombo.getItems().clear();
+        try {
+            customerCountryCombo.setItems(ReferenceDataCache.getCountries());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Initializes the controller and sets up the initial state of the user interface.
      *
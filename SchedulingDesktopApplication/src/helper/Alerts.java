@@ -2,6 +2,7 @@ package helper;
 
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ButtonType;
 import model.*;
 
 import java.time.LocalDateTime;
@@ -28,6 +29,20 @@ public class Alerts {
     }
 
 
+    /**
+     * Displays a confirmation dialog with the specified message and waits for the user's answer.
+     *
+     * @param message The question to be displayed in the alert.
+     * @return True if the user pressed OK.
+     */
+    public static boolean showConfirmation(String message) {
+        Alert alert = new Alert(AlertType.CONFIRMATION);
+        alert.setTitle("Confirm");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        return alert.showAndWait().filter(button -> button == ButtonType.OK).isPresent();
+    }
+
     public static boolean appointmentTimingError(LocalDateTime start, LocalDateTime end){
         boolean works = true;
         if(start.isEqual(end)||start.isAfter(end)){
@@ -0,0 +1,389 @@
+package helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ConnectionPool class keeps a bounded set of physical MySQL connections and lends them out to callers.
+ * Connections are validated when borrowed, closed when they sit idle or reach their maximum lifetime, and
+ * re-opened with an increasing backoff when the server cannot be reached.
+ *
+ * A borrowed connection is bound to the borrowing thread until it is closed. Nested borrows on the same thread
+ * share that connection, so a DAO method may call another DAO method without taking a second connection.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class ConnectionPool {
+
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final long INITIAL_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 8000;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30000;
+
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int maxPoolSize;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final int maxOpenStatements;
+
+    private final Deque<PooledConnection> idleConnections = new ArrayDeque<>();
+    private final Semaphore permits;
+    private final ThreadLocal<Lease> leases = new ThreadLocal<>();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new connection pool. No connection is opened until the first borrow.
+     *
+     * @param jdbcUrl                  The JDBC URL of the database.
+     * @param userName                 The database user name.
+     * @param password                 The database password.
+     * @param maxPoolSize              The maximum number of connections open at the same time.
+     * @param idleTimeoutMillis        How long an unused connection may stay open before it is closed.
+     * @param maxLifetimeMillis        How long a connection may live before it is replaced by a new one.
+     * @param borrowTimeoutMillis      How long a caller waits for a free connection or for the server to come back.
+     * @param validationTimeoutSeconds The timeout passed to {@link Connection#isValid(int)} when validating.
+     * @param statementCacheSize       The number of prepared statements cached per connection.
+     * @param maxOpenStatements        The most statements a borrower may have open on one connection at a time.
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int maxPoolSize,
+                          long idleTimeoutMillis, long maxLifetimeMillis, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds, int statementCacheSize,
+                          int maxOpenStatements) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.maxPoolSize = maxPoolSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.maxOpenStatements = maxOpenStatements;
+        this.permits = new Semaphore(maxPoolSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::evictIdleConnections,
+                HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the returned connection gives it back to the pool.
+     * If the calling thread already holds a connection, the same connection is returned again.
+     *
+     * @return A validated connection bound to the calling thread.
+     * @throws SQLException If no connection becomes available before the borrow timeout.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        Lease lease = leases.get();
+        if (lease != null) {
+            lease.holds++;
+            return lease.proxy;
+        }
+
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        PooledConnection pooled;
+        try {
+            pooled = takeIdleConnection();
+            if (pooled == null) {
+                pooled = openWithBackoff(deadline);
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        lease = new Lease(pooled);
+        leases.set(lease);
+        return lease.proxy;
+    }
+
+    /**
+     * Returns the maximum number of connections this pool keeps open.
+     *
+     * @return The maximum pool size.
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Returns the number of connections currently lent out.
+     *
+     * @return The number of active connections.
+     */
+    public int getActiveCount() {
+        return maxPoolSize - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of open connections waiting in the pool.
+     *
+     * @return The number of idle connections.
+     */
+    public int getIdleCount() {
+        synchronized (idleConnections) {
+            return idleConnections.size();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the pool. Connections still lent out are closed when they are returned.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idleConnections) {
+            for (PooledConnection pooled : idleConnections) {
+                pooled.closePhysical();
+            }
+            idleConnections.clear();
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection that is still alive, closing any that have expired or
+     * failed validation on the way.
+     *
+     * @return A usable idle connection, or null if none is left.
+     */
+    private PooledConnection takeIdleConnection() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (idleConnections) {
+                pooled = idleConnections.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            long now = System.currentTimeMillis();
+            if (pooled.isExpired(now)) {
+                pooled.closePhysical();
+            } else if (now - pooled.lastUsed > VALIDATION_BYPASS_MILLIS && !pooled.isValid()) {
+                System.out.println("Discarding a dead database connection.");
+                pooled.closePhysical();
+            } else {
+                return pooled;
+            }
+        }
+    }
+
+    /**
+     * Opens a new physical connection, retrying with an exponential backoff until the deadline passes.
+     *
+     * @param deadline The time in milliseconds after which no further attempt is made.
+     * @return The newly opened connection.
+     * @throws SQLException The last connection error if the deadline passes without success.
+     */
+    private PooledConnection openWithBackoff(long deadline) throws SQLException {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                return new PooledConnection(DriverManager.getConnection(jdbcUrl, userName, password));
+            } catch (SQLException e) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw e;
+                }
+                long wait = Math.min(backoff, remaining);
+                System.out.println("Connection attempt failed (" + e.getMessage() + "), retrying in " + wait + " ms.");
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Gives a connection back to the pool once the last nested borrow on its thread has closed it.
+     *
+     * @param lease The lease being closed.
+     */
+    private void release(Lease lease) {
+        if (leases.get() == lease) {
+            leases.remove();
+        }
+        PooledConnection pooled = lease.pooled;
+        int leaked = lease.tracker.closeAll();
+        if (leaked > 0) {
+            System.out.println("Closed " + leaked + " JDBC resource(s) left open by a DAO call.");
+        }
+        pooled.statementCache.releaseAll();
+        try {
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            pooled.closePhysical();
+        }
+
+        if (closed || pooled.isClosed() || pooled.isExpired(System.currentTimeMillis())) {
+            pooled.closePhysical();
+        } else {
+            pooled.lastUsed = System.currentTimeMillis();
+            synchronized (idleConnections) {
+                idleConnections.addFirst(pooled);
+            }
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes idle connections that have not been used within the idle timeout or have outlived the maximum lifetime.
+     */
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        synchronized (idleConnections) {
+            Iterator<PooledConnection> iterator = idleConnections.iterator();
+            while (iterator.hasNext()) {
+                PooledConnection pooled = iterator.next();
+                if (now - pooled.lastUsed > idleTimeoutMillis || pooled.isExpired(now)) {
+                    iterator.remove();
+                    pooled.closePhysical();
+                }
+            }
+        }
+    }
+
+    /**
+     * A physical connection together with its statement cache and the times used to decide when it should be retired.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private final long createdAt;
+        private long lastUsed;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = new StatementCache(physical, statementCacheSize);
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsed = createdAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdAt > maxLifetimeMillis;
+        }
+
+        private boolean isValid() {
+            try {
+                return physical.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private boolean isClosed() {
+            try {
+                return physical.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        }
+
+        private void closePhysical() {
+            statementCache.close();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One thread's hold on a pooled connection. The proxy handed to callers turns close() into a release,
+     * serves prepareStatement(String) from the connection's statement cache and tracks every statement it creates.
+     */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Connection proxy;
+        private final ResourceTracker tracker = new ResourceTracker(maxOpenStatements);
+        private int holds = 1;
+        private boolean released = false;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released && --holds == 0) {
+                        released = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.physical;
+                default:
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    Object result;
+                    if (method.getName().equals("prepareStatement") && args.length == 1) {
+                        result = pooled.statementCache.prepare((String) args[0]);
+                    } else {
+                        try {
+                            result = method.invoke(pooled.physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                    if (result instanceof Statement) {
+                        String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+                        return tracker.trackStatement((Statement) result, method.getReturnType(), sql);
+                    }
+                    return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package helper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The IntervalTree class stores half-open time intervals [start, end) and finds the ones that overlap a query interval.
+ * It is an AVL tree ordered by start and then by ID, where every node also keeps the largest end in its subtree.
+ * That lets a search skip every subtree that ends before the query starts, so finding the k overlapping intervals
+ * among n takes O(log n + k), and inserting or removing one takes O(log n).
+ *
+ * Times are plain numbers, usually epoch seconds. Two intervals overlap when each one starts before the other ends,
+ * so intervals that only touch do not overlap.
+ *
+ * @param <V> The type of the value stored with each interval.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class IntervalTree<V> {
+
+    private Node<V> root;
+    private int size = 0;
+
+    /**
+     * Adds an interval. The pair of start and ID must be unique in the tree.
+     *
+     * @param start The inclusive start of the interval.
+     * @param end   The exclusive end of the interval.
+     * @param id    The ID of the interval, used to tell apart intervals with the same start.
+     * @param value The value stored with the interval.
+     */
+    public void insert(long start, long end, int id, V value) {
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    /**
+     * Removes an interval.
+     *
+     * @param start The start the interval was added with.
+     * @param id    The ID the interval was added with.
+     * @return True if the interval was found and removed.
+     */
+    public boolean remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Checks whether any interval overlaps a query interval.
+     *
+     * @param start     The inclusive start of the query.
+     * @param end       The exclusive end of the query.
+     * @param excludeId The ID of an interval to ignore, for example the one being moved, or 0 to ignore none.
+     * @return True if at least one other interval overlaps.
+     */
+    public boolean overlaps(long start, long end, int excludeId) {
+        return findFirst(root, start, end, excludeId) != null;
+    }
+
+    /**
+     * Finds every interval that overlaps a query interval.
+     *
+     * @param start     The inclusive start of the query.
+     * @param end       The exclusive end of the query.
+     * @param excludeId The ID of an interval to leave out, or 0 to leave out none.
+     * @return The values of the overlapping intervals, ordered by start.
+     */
+    public List<V> query(long start, long end, int excludeId) {
+        List<V> result = new ArrayList<>();
+        collect(root, start, end, excludeId, result);
+        return result;
+    }
+
+    /**
+     * Returns the number of intervals in the tree.
+     *
+     * @return The interval count.
+     */
+    public int size() {
+        return size;
+    }
+
+    private Node<V> findFirst(Node<V> node, long start, long end, int excludeId) {
+        while (node != null) {
+            if (node.left != null && node.left.maxEnd > start) {
+                Node<V> found = findFirst(node.left, start, end, excludeId);
+                if (found != null) {
+                    return found;
+                }
+            }
+            if (node.start >= end) {
+                return null;
+            }
+            if (node.end > start && node.id != excludeId) {
+                return node;
+            }
+            node = (node.right != null && node.right.maxEnd > start) ? node.right : null;
+        }
+        return null;
+    }
+
+    private void collect(Node<V> node, long start, long end, int excludeId, List<V> result) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, excludeId, result);
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start && node.id != excludeId) {
+            result.add(node.value);
+        }
+        collect(node.right, start, end, excludeId, result);
+    }
+
+    private static int compare(long start, int id, Node<?> node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    private Node<V> insert(Node<V> node, Node<V> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<V> remove(Node<V> node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<V> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = removeSmallest(node.right);
+            successor.left = node.left;
+            successor.right = node.right;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node<V> removeSmallest(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeSmallest(node.left);
+        return rebalance(node);
+    }
+
+    private Node<V> rebalance(Node<V> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    /**
+     * One interval in the tree.
+     */
+    private static class Node<V> {
+        private final long start;
+        private final long end;
+        private final int id;
+        private final V value;
+        private long maxEnd;
+        private int height = 1;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(long start, long end, int id, V value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package helper;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 
 /**
- * The JDBC class provides methods for managing a JDBC database connection.
+ * The JDBC class provides methods for managing the pool of JDBC database connections.
  *  @author Elham Pazhakh
  *  JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
@@ -20,19 +19,32 @@ public abstract class JDBC {
     private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
     private static final String userName = "sqlUser"; // Username
     private static String password = "Passw0rd!"; // Password
-    public static Connection connection = null;  // Connection Interface
+    private static final int maxPoolSize = 8; // Connections open at the same time
+    private static final long idleTimeoutMillis = 5 * 60 * 1000; // Close connections unused for 5 minutes
+    private static final long maxLifetimeMillis = 30 * 60 * 1000; // Replace connections after 30 minutes, below MySQL wait_timeout
+    private static final long borrowTimeoutMillis = 30 * 1000; // Give up waiting for a connection after 30 seconds
+    private static final int validationTimeoutSeconds = 2; // Timeout for the liveness check on borrow
+    private static final int statementCacheSize = 64; // Prepared statements kept open per connection
+    private static final int maxOpenStatements = 32; // Statements one DAO call may hold open at a time
+    private static ConnectionPool pool = null;  // Connection pool
 
     /**
-     * Opens a database connection and returns the Connection object.
-     *
-     * @return The opened Connection object.
+     * Opens the connection pool and checks that the database can be reached.
      */
-    public static Connection openConnection()
+    public static void openConnection()
     {
         try {
             Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
-            System.out.println("Connection successful!");
+            pool = new ConnectionPool(jdbcUrl, userName, password, maxPoolSize, idleTimeoutMillis,
+                    maxLifetimeMillis, borrowTimeoutMillis, validationTimeoutSeconds, statementCacheSize,
+                    maxOpenStatements);
+            try (Connection connection = pool.borrow()) {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    System.out.println("Connection successful!");
+                } else {
+                    System.out.println("Error: the database did not answer the connection check.");
+                }
+            }
         }
         catch(SQLException e)
         {
@@ -41,24 +53,60 @@ public abstract class JDBC {
         catch (ClassNotFoundException e){
             e.printStackTrace();
         }
-        return connection;
     }
 
     /**
-     * Retrieves the current database connection.
+     * Borrows a database connection from the pool. Closing the connection returns it to the pool, so callers
+     * should use it in a try-with-resources block. Nested calls on the same thread share one connection.
+     *
+     * @return A validated database Connection object.
+     * @throws SQLException If no connection becomes available in time.
+     */
+    public static Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("The connection pool has not been opened.");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Returns the connection pool, for callers that need its size or usage counts.
+     *
+     * @return The connection pool, or null if it has not been opened.
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns a one-line summary of the prepared statement cache, for confirming that statements are reused.
+     *
+     * @return The hit, miss and eviction counts of the statement caches of all pooled connections.
+     */
+    public static String getStatementCacheStats() {
+        return "Statement cache hits: " + StatementCache.getHitCount()
+                + ", misses: " + StatementCache.getMissCount()
+                + ", evictions: " + StatementCache.getEvictionCount();
+    }
+
+    /**
+     * Returns a one-line summary of the statements and result sets opened through the pool, including leaks.
+     * Use {@link ResourceTracker#getRecentLeaks()} for the allocation stacks of recent leaks.
      *
-     * @return The current database Connection object.
+     * @return The open, peak, total and leaked resource counts.
      */
-    public static Connection getConnection(){
-        return connection;
+    public static String getResourceDiagnostics() {
+        return ResourceTracker.getDiagnostics();
     }
 
     /**
-     * Closes the current database connection.
+     * Closes the connection pool and every idle connection in it.
      */
     public static void closeConnection() {
         try {
-            connection.close();
+            System.out.println(getStatementCacheStats());
+            System.out.println(getResourceDiagnostics());
+            pool.shutdown();
             System.out.println("Connection closed!");
         }
         catch(Exception e)
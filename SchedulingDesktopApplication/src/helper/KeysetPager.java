@@ -0,0 +1,439 @@
+package helper;
+
+import DAO.DBAsync;
+import DAO.DBTombstones;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The KeysetPager class fills a TableView one page at a time as the user scrolls.
+ * The first page is loaded right away; the next one is requested in the background when a row close to the end
+ * of the loaded items is shown. Sorting a column does not sort the loaded rows: the table is reloaded from the
+ * database in the new order, so every page is read with the database index instead of in memory.
+ *
+ * A pager that knows how to read the changes of its table can be refreshed instead of reloaded: the rows changed or
+ * deleted since the last load or refresh are read and merged into the loaded rows in place, so a refresh costs the
+ * number of changes rather than the size of the table.
+ *
+ * @param <T> The type of the rows in the table.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class KeysetPager<T> {
+
+    /**
+     * A DAO call that reads one page of rows.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    public interface PageQuery<T> {
+        /**
+         * Reads the page that follows a row.
+         *
+         * @param after        The last row of the previous page, or null for the first page.
+         * @param sortProperty The property to sort by, as bound to the column.
+         * @param descending   True to sort in descending order.
+         * @param pageSize     The maximum number of rows to return.
+         * @return The rows of the page.
+         * @throws SQLException If a database error occurs.
+         */
+        ObservableList<T> fetch(T after, String sortProperty, boolean descending, int pageSize) throws SQLException;
+    }
+
+    /**
+     * A DAO call that reads what changed in the table since a point in time.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    public interface ChangeQuery<T> {
+        /**
+         * Reads the changes.
+         *
+         * @param since        The database time read before the last load or refresh.
+         * @param sortProperty The property the table is sorted by.
+         * @return The changes, or null if they cannot be known and the table must be reloaded.
+         * @throws SQLException If a database error occurs.
+         */
+        TableDelta<T> fetch(LocalDateTime since, String sortProperty) throws SQLException;
+    }
+
+    /**
+     * Gives the order of the pages as a comparator, so changed rows can be put in their place.
+     *
+     * @param <T> The type of the rows.
+     */
+    @FunctionalInterface
+    public interface SortOrder<T> {
+        /**
+         * Gets the comparator for a sort.
+         *
+         * @param sortProperty The property to sort by.
+         * @param descending   True for descending order.
+         * @return The comparator, in the same order as the pages.
+         */
+        Comparator<T> comparator(String sortProperty, boolean descending);
+    }
+
+    private final String defaultSortProperty;
+    private final int pageSize;
+    private final ObservableList<T> items = FXCollections.observableArrayList();
+    private final ToIntFunction<T> key;
+    private final SortOrder<T> order;
+    private PageQuery<T> query;
+    private ChangeQuery<T> changes;
+    private LocalDateTime watermark;
+    private long refreshedAtNanos;
+    private String sortProperty;
+    private boolean descending = false;
+    private boolean loading = false;
+    private boolean exhausted = false;
+    private CompletableFuture<Void> pendingPage;
+    private CompletableFuture<Void> pendingChanges;
+
+    /**
+     * Creates a pager for a table and loads the first page.
+     *
+     * @param tableView           The table to fill.
+     * @param defaultSortProperty The property to sort by when no column is sorted.
+     * @param pageSize            The number of rows to read at a time.
+     * @param query               The DAO call that reads a page.
+     */
+    public KeysetPager(TableView<T> tableView, String defaultSortProperty, int pageSize, PageQuery<T> query) {
+        this(tableView, defaultSortProperty, pageSize, query, null, null, null);
+    }
+
+    /**
+     * Creates a pager for a table that can be refreshed with the changes of its rows, and loads the first page.
+     *
+     * @param tableView           The table to fill.
+     * @param defaultSortProperty The property to sort by when no column is sorted.
+     * @param pageSize            The number of rows to read at a time.
+     * @param query               The DAO call that reads a page.
+     * @param changes             The DAO call that reads the changes, or null to reload on every refresh.
+     * @param key                 Gives the ID of a row.
+     * @param order               Gives the order of the pages.
+     */
+    public KeysetPager(TableView<T> tableView, String defaultSortProperty, int pageSize, PageQuery<T> query,
+                       ChangeQuery<T> changes, ToIntFunction<T> key, SortOrder<T> order) {
+        this(defaultSortProperty, pageSize, query, changes, key, order);
+        attach(tableView);
+    }
+
+    /**
+     * Creates a pager that is not shown in a table yet, and loads the first page. The loaded rows outlive the tables
+     * the pager is attached to, so a screen that is built again can show them without reading them again.
+     *
+     * @param defaultSortProperty The property to sort by when no column is sorted.
+     * @param pageSize            The number of rows to read at a time.
+     * @param query               The DAO call that reads a page.
+     * @param changes             The DAO call that reads the changes, or null to reload on every refresh.
+     * @param key                 Gives the ID of a row.
+     * @param order               Gives the order of the pages.
+     */
+    public KeysetPager(String defaultSortProperty, int pageSize, PageQuery<T> query,
+                       ChangeQuery<T> changes, ToIntFunction<T> key, SortOrder<T> order) {
+        this.defaultSortProperty = defaultSortProperty;
+        this.sortProperty = defaultSortProperty;
+        this.pageSize = pageSize;
+        this.query = query;
+        this.changes = changes;
+        this.key = key;
+        this.order = order;
+        loadNextPage();
+    }
+
+    /**
+     * Binds a column to a property of the rows and records the name of that property, which the pager passes to its
+     * DAO calls when the table is sorted by the column. The cell values are read through the given accessor, such as
+     * a model's property method, instead of looking up a getter by reflection like a PropertyValueFactory.
+     *
+     * @param column       The column.
+     * @param sortProperty The name of the property, as understood by the DAO calls.
+     * @param cellValue    The accessor of the property.
+     * @param <T>          The type of the rows.
+     * @param <V>          The type of the cell values.
+     */
+    public static <T, V> void bindColumn(TableColumn<T, V> column, String sortProperty, Function<T, ObservableValue<V>> cellValue) {
+        column.setUserData(sortProperty);
+        column.setCellValueFactory(cellData -> cellValue.apply(cellData.getValue()));
+    }
+
+    /**
+     * Gets the property a column sorts by: the one recorded by {@link #bindColumn}, or else the one of its
+     * PropertyValueFactory.
+     */
+    private static String sortPropertyOf(TableColumn<?, ?> column) {
+        if (column.getUserData() instanceof String) {
+            return (String) column.getUserData();
+        }
+        Object cellValueFactory = column.getCellValueFactory();
+        if (cellValueFactory instanceof PropertyValueFactory) {
+            return ((PropertyValueFactory<?, ?>) cellValueFactory).getProperty();
+        }
+        return null;
+    }
+
+    /**
+     * Shows the loaded rows in a table and pages and sorts them from it. The table's columns must be bound with
+     * {@link #bindColumn} or a PropertyValueFactory, so the column of the current sort can be found and shown as sorted.
+     *
+     * @param tableView The table to fill.
+     */
+    public void attach(TableView<T> tableView) {
+        tableView.setItems(items);
+        tableView.setRowFactory(table -> new TableRow<T>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                if (!empty && getIndex() >= items.size() - pageSize / 4) {
+                    loadNextPage();
+                }
+            }
+        });
+        // Show the sort the rows were loaded in, before the policy is set so it does not reload them
+        if (!sortProperty.equals(defaultSortProperty) || descending) {
+            for (TableColumn<T, ?> column : tableView.getColumns()) {
+                if (sortProperty.equals(sortPropertyOf(column))) {
+                    column.setSortType(descending ? TableColumn.SortType.DESCENDING : TableColumn.SortType.ASCENDING);
+                    tableView.getSortOrder().setAll(Collections.singletonList(column));
+                }
+            }
+        }
+        tableView.setSortPolicy(table -> {
+            String requestedProperty = defaultSortProperty;
+            boolean requestedDescending = false;
+            if (!table.getSortOrder().isEmpty()) {
+                TableColumn<T, ?> column = table.getSortOrder().get(0);
+                String columnProperty = sortPropertyOf(column);
+                if (columnProperty != null) {
+                    requestedProperty = columnProperty;
+                }
+                requestedDescending = column.getSortType() == TableColumn.SortType.DESCENDING;
+            }
+            if (!requestedProperty.equals(sortProperty) || requestedDescending != descending) {
+                sortProperty = requestedProperty;
+                descending = requestedDescending;
+                reload();
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Replaces the DAO call, for example when a filter changes, and reloads the table from the first page.
+     *
+     * @param query The DAO call that reads a page.
+     */
+    public void setQuery(PageQuery<T> query) {
+        setQuery(query, null);
+    }
+
+    /**
+     * Replaces the DAO calls, for example when a filter changes, and reloads the table from the first page.
+     *
+     * @param query   The DAO call that reads a page.
+     * @param changes The DAO call that reads the changes with the same filter, or null to reload on every refresh.
+     */
+    public void setQuery(PageQuery<T> query, ChangeQuery<T> changes) {
+        this.query = query;
+        this.changes = changes;
+        reload();
+    }
+
+    /**
+     * Discards the loaded rows and loads the first page again.
+     */
+    public void reload() {
+        cancel();
+        items.clear();
+        exhausted = false;
+        watermark = null;
+        loadNextPage();
+    }
+
+    /**
+     * Brings the loaded rows up to date. The rows changed since the last load or refresh are read in the background
+     * and merged in place: deleted rows are removed, and changed rows are moved to where they now sort, or left for
+     * a later page when they sort after the last loaded row. Without a way to read the changes, the table is reloaded.
+     */
+    public void refresh() {
+        if (changes == null) {
+            reload();
+            return;
+        }
+        if (watermark == null) {
+            // The first page is still loading, and is read after the time it will start the next refresh from
+            if (!loading) {
+                reload();
+            }
+            return;
+        }
+        if (pendingChanges != null) {
+            return;
+        }
+        // A page read before the merge could overlap the merged rows, so it is requested again afterwards
+        boolean pageWasLoading = loading;
+        cancelPage();
+        LocalDateTime since = watermark;
+        LocalDateTime[] next = new LocalDateTime[1];
+        ChangeQuery<T> changeQuery = changes;
+        String changeSortProperty = sortProperty;
+        pendingChanges = DBAsync.load(() -> {
+            next[0] = DBTombstones.selectServerTime();
+            return changeQuery.fetch(since, changeSortProperty);
+        }, delta -> {
+            pendingChanges = null;
+            if (delta == null || changeQuery != changes || !changeSortProperty.equals(sortProperty)) {
+                reload();
+                return;
+            }
+            watermark = next[0];
+            refreshedAtNanos = System.nanoTime();
+            merge(delta);
+            if (pageWasLoading) {
+                loadNextPage();
+            }
+        }, error -> {
+            pendingChanges = null;
+            error.printStackTrace();
+        });
+    }
+
+    /**
+     * Brings the loaded rows up to date when they were last read or refreshed longer ago than a given time,
+     * so a screen shown again shortly after it was left reads nothing.
+     *
+     * @param maxAge The age of the rows below which nothing is read.
+     */
+    public void refreshIfOlderThan(Duration maxAge) {
+        if (watermark == null || System.nanoTime() - refreshedAtNanos > maxAge.toNanos()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Merges changes made by this application into the loaded rows right away, without reading anything.
+     * Changes made elsewhere are still picked up by {@link #refresh()}.
+     *
+     * @param delta The changes, with the rows that no longer belong to the table's filter among the deleted IDs.
+     */
+    public void apply(TableDelta<T> delta) {
+        merge(delta);
+    }
+
+    /**
+     * Gets the property the rows are sorted by.
+     *
+     * @return The sort property.
+     */
+    public String getSortProperty() {
+        return sortProperty;
+    }
+
+    /**
+     * Cancels the page or changes being loaded, if any. Called before leaving the screen.
+     */
+    public void cancel() {
+        cancelPage();
+        if (pendingChanges != null) {
+            pendingChanges.cancel(true);
+            pendingChanges = null;
+        }
+    }
+
+    private void cancelPage() {
+        if (pendingPage != null) {
+            pendingPage.cancel(true);
+            pendingPage = null;
+        }
+        loading = false;
+    }
+
+    /**
+     * Merges changes into the loaded rows. A changed row that sorts after the last loaded row is not added while
+     * more pages remain, since the next page starts after that last row and will contain it.
+     */
+    private void merge(TableDelta<T> delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        Set<Integer> touched = new HashSet<>(delta.getDeletedIds());
+        for (T row : delta.getChanged()) {
+            touched.add(key.applyAsInt(row));
+        }
+        items.removeIf(item -> touched.contains(key.applyAsInt(item)));
+        Comparator<T> comparator = order.comparator(sortProperty, descending);
+        for (T row : delta.getChanged()) {
+            int position = Collections.binarySearch(items, row, comparator);
+            if (position < 0) {
+                position = -position - 1;
+            }
+            if (position < items.size() || exhausted) {
+                items.add(position, row);
+            }
+        }
+    }
+
+    /**
+     * Gets the rows loaded so far. Removing a row from this list removes it from the table.
+     *
+     * @return The loaded rows.
+     */
+    public ObservableList<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Requests the page after the last loaded row, unless one is already loading or every row has been read.
+     */
+    private void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        T after = items.isEmpty() ? null : items.get(items.size() - 1);
+        PageQuery<T> pageQuery = query;
+        String pageSortProperty = sortProperty;
+        boolean pageDescending = descending;
+        // The first page of a load starts the watermark, read from the database clock before the page itself
+        boolean firstPage = watermark == null && changes != null;
+        LocalDateTime[] readAt = new LocalDateTime[1];
+        pendingPage = DBAsync.load(() -> {
+            if (firstPage) {
+                readAt[0] = DBTombstones.selectServerTime();
+            }
+            return pageQuery.fetch(after, pageSortProperty, pageDescending, pageSize);
+        }, page -> {
+            loading = false;
+            pendingPage = null;
+            if (firstPage) {
+                watermark = readAt[0];
+                refreshedAtNanos = System.nanoTime();
+            }
+            exhausted = page.size() < pageSize;
+            items.addAll(page);
+        }, error -> {
+            loading = false;
+            pendingPage = null;
+            error.printStackTrace();
+        });
+    }
+}
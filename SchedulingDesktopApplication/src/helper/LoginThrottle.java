@@ -0,0 +1,86 @@
+package helper;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The LoginThrottle class limits how often logins can be attempted, before the database is asked.
+ * It keeps the times of the recent attempts in a sliding window, both for each user name and for all users
+ * together, and refuses an attempt once either limit is reached. Refused attempts are not recorded,
+ * so the window frees up as soon as the oldest attempt in it is old enough.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class LoginThrottle {
+
+    private final int maxAttemptsPerUser;
+    private final int maxAttemptsTotal;
+    private final long windowNanos;
+    private final Map<String, Deque<Long>> attemptsByUser = new HashMap<>();
+    private final Deque<Long> allAttempts = new ArrayDeque<>();
+
+    /**
+     * Creates a throttle.
+     *
+     * @param maxAttemptsPerUser The most attempts one user name may make within the window.
+     * @param maxAttemptsTotal   The most attempts all user names together may make within the window.
+     * @param windowMillis       The length of the sliding window in milliseconds.
+     */
+    public LoginThrottle(int maxAttemptsPerUser, int maxAttemptsTotal, long windowMillis) {
+        this.maxAttemptsPerUser = maxAttemptsPerUser;
+        this.maxAttemptsTotal = maxAttemptsTotal;
+        this.windowNanos = windowMillis * 1_000_000L;
+    }
+
+    /**
+     * Records a login attempt if it is allowed.
+     *
+     * @param userName The user name of the attempt.
+     * @return True if the attempt may go ahead, false if it is refused.
+     */
+    public synchronized boolean tryAcquire(String userName) {
+        long now = System.nanoTime();
+        if (attemptsByUser.size() > 1000) {
+            attemptsByUser.values().removeIf(attempts -> {
+                expire(attempts, now);
+                return attempts.isEmpty();
+            });
+        }
+        String key = key(userName);
+        Deque<Long> userAttempts = attemptsByUser.computeIfAbsent(key, k -> new ArrayDeque<>());
+        expire(userAttempts, now);
+        expire(allAttempts, now);
+        if (userAttempts.size() >= maxAttemptsPerUser || allAttempts.size() >= maxAttemptsTotal) {
+            if (userAttempts.isEmpty()) {
+                attemptsByUser.remove(key);
+            }
+            return false;
+        }
+        userAttempts.addLast(now);
+        allAttempts.addLast(now);
+        return true;
+    }
+
+    /**
+     * Forgets the attempts of a user name, for example after a successful login.
+     *
+     * @param userName The user name.
+     */
+    public synchronized void reset(String userName) {
+        attemptsByUser.remove(key(userName));
+    }
+
+    private void expire(Deque<Long> attempts, long now) {
+        while (!attempts.isEmpty() && now - attempts.peekFirst() >= windowNanos) {
+            attempts.removeFirst();
+        }
+    }
+
+    private static String key(String userName) {
+        return userName == null ? "" : userName.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,136 @@
+package helper;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Navigator class switches the stage between the screens of the application. Each screen's FXML is parsed once:
+ * its scene and controller are kept and shown again on the next visit, after the controller has reset its form.
+ * After login, the screens not visited yet are loaded ahead of time, so even the first visit does not wait for them.
+ *
+ * Loading builds the scene and runs the controller's initialize(), which must happen on the JavaFX Application
+ * Thread, so screens are loaded ahead one at a time through Platform.runLater, letting events run in between.
+ * A screen that fails to load ahead is loaded again when it is shown. The login screen is not kept, since it is
+ * shown only once. Every method must be called on the JavaFX Application Thread.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public abstract class Navigator {
+
+    /**
+     * A controller whose screen is shown again after it was left. The fields it filled in, the selections made
+     * and the lists it loaded are from the earlier visit, so it puts them back to the state of a new screen.
+     */
+    public interface Reusable {
+        /**
+         * Called on the JavaFX Application Thread before the kept screen is shown again.
+         */
+        void reset();
+    }
+
+    /**
+     * The main screen with the customer and appointment tables.
+     */
+    public static final String MAIN_VIEW = "/view/CustomerAndAppointmentView.fxml";
+    /**
+     * The form for adding a customer.
+     */
+    public static final String ADD_CUSTOMER_VIEW = "/view/AddCustomerView.fxml";
+    /**
+     * The form for updating a customer.
+     */
+    public static final String UPDATE_CUSTOMER_VIEW = "/view/UpdateCustomerView.fxml";
+    /**
+     * The form for adding an appointment.
+     */
+    public static final String ADD_APPOINTMENT_VIEW = "/view/AddAppointmentView.fxml";
+    /**
+     * The form for updating an appointment.
+     */
+    public static final String UPDATE_APPOINTMENT_VIEW = "/view/UpdateAppointmentView.fxml";
+    /**
+     * The reports screen.
+     */
+    public static final String REPORT_VIEW = "/view/ReportView.fxml";
+
+    private static final String[] views = {
+            MAIN_VIEW, ADD_CUSTOMER_VIEW, UPDATE_CUSTOMER_VIEW, ADD_APPOINTMENT_VIEW, UPDATE_APPOINTMENT_VIEW, REPORT_VIEW
+    };
+
+    private static final Map<String, LoadedView> loadedViews = new HashMap<>();
+
+    /**
+     * Shows a screen in a stage, parsing its FXML only the first time. A kept screen is reset before it is shown.
+     *
+     * @param stage The stage to show the screen in.
+     * @param view  The path of the screen's FXML, one of the constants of this class.
+     * @param <C>   The type of the screen's controller.
+     * @return The controller of the screen.
+     * @throws IOException If the FXML had to be loaded and could not be.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> C show(Stage stage, String view) throws IOException {
+        LoadedView loaded = loadedViews.get(view);
+        if (loaded == null) {
+            loaded = load(view);
+            loadedViews.put(view, loaded);
+        } else if (loaded.controller instanceof Reusable) {
+            ((Reusable) loaded.controller).reset();
+        }
+        stage.setScene(loaded.scene);
+        stage.show();
+        return (C) loaded.controller;
+    }
+
+    /**
+     * Starts loading the screens that have not been loaded yet, one per pulse of the JavaFX Application Thread.
+     * Called after login.
+     */
+    public static void preload() {
+        preloadFrom(0);
+    }
+
+    private static void preloadFrom(int index) {
+        if (index == views.length) {
+            return;
+        }
+        Platform.runLater(() -> {
+            String view = views[index];
+            if (!loadedViews.containsKey(view)) {
+                try {
+                    loadedViews.put(view, load(view));
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Could not preload " + view + ": " + e);
+                }
+            }
+            preloadFrom(index + 1);
+        });
+    }
+
+    private static LoadedView load(String view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Navigator.class.getResource(view));
+        Parent root = loader.load();
+        return new LoadedView(new Scene(root), loader.getController());
+    }
+
+    /**
+     * The scene of a parsed screen and its controller.
+     */
+    private static class LoadedView {
+        private final Scene scene;
+        private final Object controller;
+
+        private LoadedView(Scene scene, Object controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package helper;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * The PasswordHasher class hashes and verifies user passwords with salted PBKDF2.
+ * A stored hash has the form "pbkdf2$iterations$salt$hash", with the salt and hash in Base64.
+ * Passwords stored before hashing was introduced are plain text; they are still accepted, and the login screen
+ * replaces them with a hash the first time they are verified.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATIONS = 120_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom random = new SecureRandom();
+    private static final String DUMMY_HASH = hash("dummy password");
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The password to hash.
+     * @return The stored form of the hash.
+     */
+    public static String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, ITERATIONS, HASH_BITS);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * Checks a password against its stored form.
+     * When there is no stored password, for example because the user does not exist, or the stored password is
+     * legacy plain text, a hash is still computed so that every answer takes as long as for a hashed password.
+     *
+     * @param password The password entered by the user.
+     * @param stored   The stored hash or legacy plain text password, or null if there is none.
+     * @return True if the password matches.
+     */
+    public static boolean verify(String password, String stored) {
+        if (stored == null) {
+            verify(password, DUMMY_HASH);
+            return false;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+            verify(password, DUMMY_HASH);
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            byte[] actual = derive(password, salt, iterations, expected.length * 8);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: malformed password hash.");
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a stored password is a hash rather than legacy plain text.
+     *
+     * @param stored The stored password.
+     * @return True if the stored password is a PBKDF2 hash.
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int bits) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, bits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available.", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ResourceTracker class follows every statement and result set opened on one borrowed connection.
+ * Each resource is wrapped so that its close() is seen. When the DAO call gives the connection back, anything
+ * still open is closed and reported as a leak. The counters are always kept; the stack that allocated each resource
+ * is recorded only when the system property scheduling.jdbc.captureStacks is true, as it costs a stack walk per
+ * statement.
+ *
+ * The static methods give the diagnostics for the whole application: how many resources are open right now,
+ * the highest number seen, and the most recent leaks with the stack that allocated them when it was recorded.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class ResourceTracker {
+
+    private static final int MAX_RECENT_LEAKS = 50;
+    private static final boolean captureStacks = Boolean.getBoolean("scheduling.jdbc.captureStacks");
+
+    private static final AtomicLong statementsOpened = new AtomicLong();
+    private static final AtomicLong resultSetsOpened = new AtomicLong();
+    private static final AtomicLong leaksDetected = new AtomicLong();
+    private static final AtomicInteger openStatements = new AtomicInteger();
+    private static final AtomicInteger openResultSets = new AtomicInteger();
+    private static final AtomicInteger peakOpenStatements = new AtomicInteger();
+    private static final AtomicInteger peakOpenResultSets = new AtomicInteger();
+    private static final Deque<LeakReport> recentLeaks = new ArrayDeque<>();
+
+    private final int maxOpenStatements;
+    private final Set<TrackedResource> open = new LinkedHashSet<>();
+    private int openStatementCount = 0;
+
+    /**
+     * Creates a tracker for one borrowed connection.
+     *
+     * @param maxOpenStatements The most statements that may be open on the connection at the same time.
+     */
+    public ResourceTracker(int maxOpenStatements) {
+        this.maxOpenStatements = maxOpenStatements;
+    }
+
+    /**
+     * Wraps a newly created statement so that it and its result sets are tracked.
+     *
+     * @param statement     The statement returned by the connection.
+     * @param interfaceType The statement interface to expose, for example PreparedStatement.
+     * @param sql           The SQL text of the statement, or null for a plain Statement.
+     * @return The tracked statement.
+     * @throws SQLException If the connection already has the maximum number of open statements.
+     */
+    public Object trackStatement(Statement statement, Class<?> interfaceType, String sql) throws SQLException {
+        if (openStatementCount >= maxOpenStatements) {
+            statement.close();
+            throw new SQLException("Too many open statements on one connection (limit " + maxOpenStatements + ").");
+        }
+        TrackedResource tracked = new TrackedResource(statement, null, sql);
+        open.add(tracked);
+        openStatementCount++;
+        statementsOpened.incrementAndGet();
+        raisePeak(peakOpenStatements, openStatements.incrementAndGet());
+        tracked.proxy = Proxy.newProxyInstance(interfaceType.getClassLoader(), new Class<?>[]{interfaceType}, tracked);
+        return tracked.proxy;
+    }
+
+    /**
+     * Closes every resource still open on the connection and records each one as a leak.
+     * Result sets are closed before the statements that produced them.
+     *
+     * @return The number of leaked resources that were closed.
+     */
+    public int closeAll() {
+        List<TrackedResource> leaked = new ArrayList<>(open);
+        leaked.sort((a, b) -> Boolean.compare(a.isStatement(), b.isStatement()));
+        for (TrackedResource tracked : leaked) {
+            recordLeak(tracked);
+            tracked.closeQuietly();
+        }
+        return leaked.size();
+    }
+
+    /**
+     * Returns the number of statements currently open across all connections.
+     *
+     * @return The open statement count.
+     */
+    public static int getOpenStatementCount() {
+        return openStatements.get();
+    }
+
+    /**
+     * Returns the number of result sets currently open across all connections.
+     *
+     * @return The open result set count.
+     */
+    public static int getOpenResultSetCount() {
+        return openResultSets.get();
+    }
+
+    /**
+     * Returns the number of resources that were still open when their connection was given back.
+     *
+     * @return The total leak count.
+     */
+    public static long getLeakCount() {
+        return leaksDetected.get();
+    }
+
+    /**
+     * Returns the most recent leaks, oldest first.
+     *
+     * @return A copy of the recent leak reports.
+     */
+    public static List<LeakReport> getRecentLeaks() {
+        synchronized (recentLeaks) {
+            return new ArrayList<>(recentLeaks);
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the tracked JDBC resources.
+     *
+     * @return The open, peak, total and leaked counts of statements and result sets.
+     */
+    public static String getDiagnostics() {
+        return "Statements open: " + openStatements.get() + " (peak " + peakOpenStatements.get()
+                + ", total " + statementsOpened.get() + "), result sets open: " + openResultSets.get()
+                + " (peak " + peakOpenResultSets.get() + ", total " + resultSetsOpened.get()
+                + "), leaks: " + leaksDetected.get();
+    }
+
+    private static void raisePeak(AtomicInteger peak, int current) {
+        peak.accumulateAndGet(current, Math::max);
+    }
+
+    private static void recordLeak(TrackedResource tracked) {
+        leaksDetected.incrementAndGet();
+        LeakReport report = new LeakReport(tracked.isStatement() ? "Statement" : "ResultSet",
+                tracked.sql, Thread.currentThread().getName(), tracked.allocatedAt, tracked.allocationStack);
+        synchronized (recentLeaks) {
+            if (recentLeaks.size() == MAX_RECENT_LEAKS) {
+                recentLeaks.removeFirst();
+            }
+            recentLeaks.addLast(report);
+        }
+    }
+
+    /**
+     * A statement or result set handed to DAO code, with the details needed to report it if it leaks.
+     */
+    private class TrackedResource implements InvocationHandler {
+        private final AutoCloseable delegate;
+        private final TrackedResource owner;
+        private final String sql;
+        private final LocalDateTime allocatedAt = LocalDateTime.now();
+        private final StackTraceElement[] allocationStack;
+        private final List<TrackedResource> resultSets = new ArrayList<>();
+        private Object proxy;
+        private boolean closed = false;
+
+        private TrackedResource(AutoCloseable delegate, TrackedResource owner, String sql) {
+            this.delegate = delegate;
+            this.owner = owner;
+            this.sql = sql;
+            this.allocationStack = captureStacks ? new Throwable().getStackTrace() : new StackTraceElement[0];
+        }
+
+        private boolean isStatement() {
+            return owner == null;
+        }
+
+        private ResultSet trackResultSet(ResultSet rs) {
+            if (rs == null) {
+                return null;
+            }
+            TrackedResource tracked = new TrackedResource(rs, this, sql);
+            open.add(tracked);
+            resultSets.add(tracked);
+            resultSetsOpened.incrementAndGet();
+            raisePeak(peakOpenResultSets, openResultSets.incrementAndGet());
+            tracked.proxy = Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, tracked);
+            return (ResultSet) tracked.proxy;
+        }
+
+        private void markClosed() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            open.remove(this);
+            if (isStatement()) {
+                openStatementCount--;
+                openStatements.decrementAndGet();
+                for (TrackedResource rs : new ArrayList<>(resultSets)) {
+                    rs.closeQuietly();
+                }
+            } else {
+                openResultSets.decrementAndGet();
+                owner.resultSets.remove(this);
+            }
+        }
+
+        private void closeQuietly() {
+            if (closed) {
+                return;
+            }
+            try {
+                delegate.close();
+            } catch (Exception e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+            markClosed();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closeQuietly();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Tracked" + delegate;
+                default:
+                    if (isStatement() && method.getName().startsWith("execute")) {
+                        for (TrackedResource rs : new ArrayList<>(resultSets)) {
+                            rs.closeQuietly();
+                        }
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(delegate, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof ResultSet && isStatement()) {
+                        return trackResultSet((ResultSet) result);
+                    }
+                    if (result == delegate || (!isStatement() && result instanceof Statement)) {
+                        return isStatement() ? this.proxy : owner.proxy;
+                    }
+                    return result;
+            }
+        }
+    }
+
+    /**
+     * A description of one leaked resource.
+     */
+    public static class LeakReport {
+        private final String kind;
+        private final String sql;
+        private final String threadName;
+        private final LocalDateTime allocatedAt;
+        private final StackTraceElement[] allocationStack;
+
+        private LeakReport(String kind, String sql, String threadName, LocalDateTime allocatedAt,
+                           StackTraceElement[] allocationStack) {
+            this.kind = kind;
+            this.sql = sql;
+            this.threadName = threadName;
+            this.allocatedAt = allocatedAt;
+            this.allocationStack = allocationStack;
+        }
+
+        /**
+         * Gets the kind of resource that leaked, either "Statement" or "ResultSet".
+         *
+         * @return The resource kind.
+         */
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the SQL text of the leaked resource.
+         *
+         * @return The SQL text, or null for a plain Statement.
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Gets the name of the thread that gave the connection back with the resource still open.
+         *
+         * @return The thread name.
+         */
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * Gets the time the resource was opened.
+         *
+         * @return The allocation time.
+         */
+        public LocalDateTime getAllocatedAt() {
+            return allocatedAt;
+        }
+
+        /**
+         * Gets the stack that opened the resource. Empty when stack capture is turned off.
+         *
+         * @return The allocation stack.
+         */
+        public StackTraceElement[] getAllocationStack() {
+            return allocationStack.clone();
+        }
+
+        /**
+         * Returns the kind, SQL and the first DAO frame of the allocation stack.
+         *
+         * @return A string describing the leak.
+         */
+        @Override
+        public String toString() {
+            String site = "";
+            for (StackTraceElement frame : allocationStack) {
+                if (!frame.getClassName().startsWith("helper.") && !frame.getClassName().startsWith("jdk.")
+                        && !frame.getClassName().startsWith("java.") && !frame.getClassName().startsWith("com.sun.proxy")) {
+                    site = " at " + frame;
+                    break;
+                }
+            }
+            return kind + " [" + sql + "] opened " + allocatedAt + site;
+        }
+    }
+}
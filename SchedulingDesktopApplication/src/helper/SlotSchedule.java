@@ -0,0 +1,186 @@
+package helper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * The SlotSchedule class holds the start and end times the appointment forms offer for one date: the steps of
+ * business hours, 08:00 to 22:00 America/New_York, that fall on that date in the user's time zone.
+ *
+ * The steps are counted in New York time and each one is converted on its own, so a date on which either time zone
+ * changes its clocks gets the times that really are within business hours that day: a skipped wall time is not
+ * offered and a repeated one is offered once. A date in the user's time zone can overlap two business days, so the
+ * business days on both sides are taken into account.
+ *
+ * Schedules are immutable and kept by time zone, date and step, so going back to a date does not work them out
+ * again. The least recently used ones are dropped when more than {@link #CAPACITY} are kept.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class SlotSchedule {
+
+    /**
+     * The time zone business hours are set in.
+     */
+    public static final ZoneId BUSINESS_TIME_ZONE = ZoneId.of("America/New_York");
+    /**
+     * The opening time of business hours.
+     */
+    public static final LocalTime BUSINESS_HOURS_START = LocalTime.of(8, 0);
+    /**
+     * The closing time of business hours.
+     */
+    public static final LocalTime BUSINESS_HOURS_END = LocalTime.of(22, 0);
+    /**
+     * The step between the offered times.
+     */
+    public static final Duration STEP = Duration.ofMinutes(30);
+    /**
+     * The number of schedules kept.
+     */
+    public static final int CAPACITY = 64;
+
+    private static final Map<Key, SlotSchedule> schedules = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SlotSchedule> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private final List<LocalTime> startTimes;
+    private final List<LocalTime> endTimes;
+
+    private SlotSchedule(List<LocalTime> startTimes, List<LocalTime> endTimes) {
+        this.startTimes = Collections.unmodifiableList(startTimes);
+        this.endTimes = Collections.unmodifiableList(endTimes);
+    }
+
+    /**
+     * Gets the schedule of a date in the system default time zone, with the usual step.
+     *
+     * @param date The date, or null for today.
+     * @return The schedule.
+     */
+    public static SlotSchedule of(LocalDate date) {
+        return of(ZoneId.systemDefault(), date != null ? date : LocalDate.now(), STEP);
+    }
+
+    /**
+     * Gets the schedule of a date in a time zone, working it out the first time.
+     *
+     * @param zone The user's time zone.
+     * @param date The date in that time zone.
+     * @param step The step between the offered times; business hours should be a whole number of steps.
+     * @return The schedule.
+     */
+    public static synchronized SlotSchedule of(ZoneId zone, LocalDate date, Duration step) {
+        Key key = new Key(zone, date, step);
+        SlotSchedule schedule = schedules.get(key);
+        if (schedule == null) {
+            schedule = build(zone, date, step);
+            schedules.put(key, schedule);
+        }
+        return schedule;
+    }
+
+    /**
+     * Gets the times an appointment can start at on the date, in order.
+     *
+     * @return An unmodifiable list of the start times.
+     */
+    public List<LocalTime> getStartTimes() {
+        return startTimes;
+    }
+
+    /**
+     * Gets the times an appointment can end at on the date, in order. An end at the midnight that closes the date
+     * is the last one, as {@link LocalTime#MIDNIGHT}.
+     *
+     * @return An unmodifiable list of the end times.
+     */
+    public List<LocalTime> getEndTimes() {
+        return endTimes;
+    }
+
+    /**
+     * Combines a date and an end time from {@link #getEndTimes()} into the end of an appointment. The midnight that
+     * closes the date is the start of the next day, so such an end comes after every start of the date.
+     *
+     * @param date The date of the appointment.
+     * @param end  The end time.
+     * @return The end date and time.
+     */
+    public static LocalDateTime endOn(LocalDate date, LocalTime end) {
+        return end.equals(LocalTime.MIDNIGHT) ? date.plusDays(1).atStartOfDay() : LocalDateTime.of(date, end);
+    }
+
+    private static SlotSchedule build(ZoneId zone, LocalDate date, Duration step) {
+        TreeSet<LocalTime> starts = new TreeSet<>();
+        TreeSet<LocalTime> ends = new TreeSet<>();
+        boolean endsAtMidnight = false;
+        LocalDate nextDate = date.plusDays(1);
+        for (LocalDate day = date.minusDays(1); !day.isAfter(nextDate); day = day.plusDays(1)) {
+            ZonedDateTime open = ZonedDateTime.of(day, BUSINESS_HOURS_START, BUSINESS_TIME_ZONE);
+            ZonedDateTime close = ZonedDateTime.of(day, BUSINESS_HOURS_END, BUSINESS_TIME_ZONE);
+            // Stepping the instant, not the wall time, keeps the steps right across a clock change in New York
+            for (ZonedDateTime time = open; !time.isAfter(close); time = time.plus(step)) {
+                LocalDateTime local = time.withZoneSameInstant(zone).toLocalDateTime();
+                if (time.isBefore(close) && local.toLocalDate().equals(date)) {
+                    starts.add(local.toLocalTime());
+                }
+                if (time.isAfter(open)) {
+                    if (local.toLocalDate().equals(date) && !local.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+                        ends.add(local.toLocalTime());
+                    } else if (local.equals(nextDate.atStartOfDay())) {
+                        endsAtMidnight = true;
+                    }
+                }
+            }
+        }
+        List<LocalTime> endTimes = new ArrayList<>(ends);
+        if (endsAtMidnight) {
+            endTimes.add(LocalTime.MIDNIGHT);
+        }
+        return new SlotSchedule(new ArrayList<>(starts), endTimes);
+    }
+
+    /**
+     * The time zone, date and step a schedule is kept by.
+     */
+    private static class Key {
+        private final ZoneId zone;
+        private final LocalDate date;
+        private final Duration step;
+
+        private Key(ZoneId zone, LocalDate date, Duration step) {
+            this.zone = zone;
+            this.date = date;
+            this.step = step;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return zone.equals(key.zone) && date.equals(key.date) && step.equals(key.step);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zone, date, step);
+        }
+    }
+}
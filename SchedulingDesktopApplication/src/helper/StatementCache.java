@@ -0,0 +1,235 @@
+package helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The StatementCache class keeps the prepared statements of one physical connection, keyed by their SQL text,
+ * so that repeated DAO calls reuse a statement instead of preparing it again. The least recently used statement
+ * is closed when the cache is full.
+ *
+ * A statement handed out by the cache stays checked out until its close() is called or the connection is given
+ * back to the pool. If the same SQL is prepared again while the cached statement is still checked out, a
+ * separate statement is prepared and closed on release.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class StatementCache {
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private final Connection physical;
+    private final Map<String, CachedStatement> statements;
+    private final List<CachedStatement> checkedOut = new ArrayList<>();
+    private final List<PreparedStatement> uncached = new ArrayList<>();
+
+    /**
+     * Creates an empty cache for the given physical connection.
+     *
+     * @param physical The connection the statements are prepared on.
+     * @param capacity The maximum number of statements kept open.
+     */
+    public StatementCache(Connection physical, int capacity) {
+        this.physical = physical;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing the cached one when it is free.
+     *
+     * @param sql The SQL text of the statement.
+     * @return A prepared statement whose close() returns it to the cache.
+     * @throws SQLException If the statement cannot be prepared.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+            hits.incrementAndGet();
+            cached.inUse = true;
+            checkedOut.add(cached);
+            return cached.proxy;
+        }
+        misses.incrementAndGet();
+        if (cached != null && cached.inUse) {
+            PreparedStatement statement = physical.prepareStatement(sql);
+            uncached.add(statement);
+            return statement;
+        }
+        cached = new CachedStatement(physical.prepareStatement(sql));
+        cached.inUse = true;
+        statements.put(sql, cached);
+        checkedOut.add(cached);
+        return cached.proxy;
+    }
+
+    /**
+     * Returns every statement still checked out to the cache. Called when the connection goes back to the pool.
+     */
+    public void releaseAll() {
+        for (CachedStatement cached : new ArrayList<>(checkedOut)) {
+            cached.giveBack();
+        }
+        for (PreparedStatement statement : uncached) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+        uncached.clear();
+    }
+
+    /**
+     * Closes every statement in the cache. Called before the physical connection is closed.
+     */
+    public void close() {
+        releaseAll();
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().closeQuietly();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns the number of statements currently held by this cache.
+     *
+     * @return The number of cached statements.
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Returns how many prepare calls across all connections were served from a cache.
+     *
+     * @return The total cache hit count.
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many prepare calls across all connections had to prepare a new statement.
+     *
+     * @return The total cache miss count.
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns how many statements were closed because a cache was full.
+     *
+     * @return The total eviction count.
+     */
+    public static long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * A cached statement and the proxy handed to DAO code in its place.
+     */
+    private class CachedStatement implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        /**
+         * Closes the open result set and clears the parameters so the statement is ready for its next use.
+         */
+        private void giveBack() {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            checkedOut.remove(this);
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                ResultSet rs = statement.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                statement.clearParameters();
+            } catch (SQLException e) {
+                closeQuietly();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack();
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + statement;
+                default:
+                    if (!inUse) {
+                        throw new SQLException("Statement has already been returned to the cache.");
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package helper;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The StringDictionary class gives every distinct value of a low-cardinality column, such as an appointment type or
+ * the user name in an audit column, one canonical String instance and one int code.
+ * The DAO row mappers pass those columns through the shared dictionary, so the thousands of rows that say "Planning
+ * Session" or "script" all point to the same String instead of each holding a fresh copy from the driver.
+ *
+ * Lookups of known values do not lock and the dictionary is safe to use from the background query threads.
+ * Once it holds its maximum number of values, new values are returned as they are, so a column that turns out
+ * not to repeat cannot make it grow without end.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class StringDictionary {
+
+    /**
+     * The dictionary shared by the DAO row mappers.
+     */
+    public static final StringDictionary shared = new StringDictionary(10_000);
+
+    private final int maxValues;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private int valueCount = 0;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Creates a dictionary.
+     *
+     * @param maxValues The most distinct values the dictionary keeps.
+     */
+    public StringDictionary(int maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Gets the canonical instance of a value.
+     *
+     * @param value The value, or null.
+     * @return The canonical String equal to the value, the value itself when the dictionary is full, or null.
+     */
+    public String intern(String value) {
+        int code = code(value);
+        if (code < 0) {
+            return value;
+        }
+        String canonical = values[code];
+        if (canonical != value) {
+            hits.increment();
+            savedBytes.add(estimateBytes(value));
+        }
+        return canonical;
+    }
+
+    /**
+     * Gets the int code of a value, adding the value if it is new.
+     *
+     * @param value The value, or null.
+     * @return The code, or -1 for null or when the dictionary is full and the value is new.
+     */
+    public int code(String value) {
+        if (value == null) {
+            return -1;
+        }
+        lookups.increment();
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Gets the value of a code.
+     *
+     * @param code The code returned by {@link #code(String)}.
+     * @return The value, or null for -1.
+     */
+    public String decode(int code) {
+        return code >= 0 ? values[code] : null;
+    }
+
+    /**
+     * Returns the number of distinct values in the dictionary.
+     *
+     * @return The value count.
+     */
+    public synchronized int size() {
+        return valueCount;
+    }
+
+    /**
+     * Estimates the heap saved so far, by the duplicate Strings that were replaced with canonical ones and could be
+     * collected, less what the dictionary itself uses.
+     *
+     * @return The estimated saving in bytes.
+     */
+    public long estimateSavedBytes() {
+        long used = 0;
+        String[] current = values;
+        int count = size();
+        for (int i = 0; i < count; i++) {
+            used += estimateBytes(current[i]) + 48;
+        }
+        return savedBytes.sum() - used;
+    }
+
+    /**
+     * Describes how much the dictionary has been used and how much memory it saved.
+     *
+     * @return A one-line report.
+     */
+    public String report() {
+        return "String dictionary: " + size() + " distinct values, " + lookups.sum() + " lookups, "
+                + hits.sum() + " duplicates replaced, about " + (estimateSavedBytes() / 1024) + " KB saved";
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (valueCount == maxValues) {
+            return -1;
+        }
+        String[] current = values;
+        if (valueCount == current.length) {
+            current = Arrays.copyOf(current, valueCount * 2);
+        }
+        current[valueCount] = value;
+        values = current;
+        codes.put(value, valueCount);
+        return valueCount++;
+    }
+
+    /**
+     * Estimates the heap of a String: its object header and fields, plus the header and content of its byte array.
+     */
+    private static long estimateBytes(String value) {
+        return 24 + 16 + ((value.length() + 7) & ~7L);
+    }
+}
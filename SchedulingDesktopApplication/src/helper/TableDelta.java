@@ -0,0 +1,56 @@
+package helper;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The TableDelta class holds what changed in a table since a point in time: the rows inserted or updated since then,
+ * and the IDs of the rows deleted since then. It is what a KeysetPager merges into the rows it has already loaded.
+ *
+ * @param <T> The type of the rows.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class TableDelta<T> {
+
+    private final List<T> changed;
+    private final Set<Integer> deletedIds;
+
+    /**
+     * Constructs a new TableDelta.
+     *
+     * @param changed    The rows inserted or updated, with their current values.
+     * @param deletedIds The IDs of the rows deleted.
+     */
+    public TableDelta(List<T> changed, Set<Integer> deletedIds) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+    }
+
+    /**
+     * Gets the rows inserted or updated.
+     *
+     * @return The rows, with their current values.
+     */
+    public List<T> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Gets the IDs of the rows deleted.
+     *
+     * @return The IDs.
+     */
+    public Set<Integer> getDeletedIds() {
+        return deletedIds;
+    }
+
+    /**
+     * Checks whether nothing changed.
+     *
+     * @return True if no row was inserted, updated or deleted.
+     */
+    public boolean isEmpty() {
+        return changed.isEmpty() && deletedIds.isEmpty();
+    }
+}
@@ -1,16 +1,33 @@
 package helper;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 
 /**
  * The TimeUtils class provides utility methods for working with date and time.
+ *
+ * Conversions between UTC and the system default timezone work on epoch seconds. The rules of the timezone are
+ * looked up once, and the offset is kept together with the span between the transitions around it, so converting
+ * a time in the same span only adds the offset, without building a ZonedDateTime. A time in another span moves the
+ * cached span there.
+ * The system default timezone is read on first use.
+ *
  *  @author Elham Pazhakh
  *  JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
 public class TimeUtils {
 
+    // The longest offset change; a local time this far from the transitions of its span cannot fall in a gap or overlap
+    private static final long MAX_OFFSET_CHANGE = 24 * 60 * 60;
+
+    private static final ZoneId zone = ZoneId.systemDefault();
+    private static final ZoneRules rules = zone.getRules();
+    private static volatile OffsetSpan span = spanOf(0);
+
     /**
      * Converts a LocalDateTime object to UTC.
      *
@@ -18,11 +35,8 @@ public class TimeUtils {
      * @return The equivalent LocalDateTime in UTC.
      */
     public static LocalDateTime toUTC(LocalDateTime localDateTime) {
-
-        ZoneId utcZone = ZoneId.of("UTC");
-        ZonedDateTime zonedDateTime = localDateTime.atZone(ZoneId.systemDefault());
-        ZonedDateTime utcDateTime = zonedDateTime.withZoneSameInstant(utcZone);
-        return utcDateTime.toLocalDateTime();
+        long utcSeconds = utcSecondsOf(localDateTime.toEpochSecond(ZoneOffset.UTC));
+        return LocalDateTime.ofEpochSecond(utcSeconds, localDateTime.getNano(), ZoneOffset.UTC);
     }
 
     /**
@@ -32,11 +46,65 @@ public class TimeUtils {
      * @return The equivalent LocalDateTime in the system default timezone.
      */
     public static LocalDateTime toSystemDefault(LocalDateTime utcDateTime) {
+        long localSeconds = localSecondsOf(utcDateTime.toEpochSecond(ZoneOffset.UTC));
+        return LocalDateTime.ofEpochSecond(localSeconds, utcDateTime.getNano(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts a UTC time to the wall time of the system default timezone, both as epoch seconds read as UTC.
+     */
+    private static long localSecondsOf(long utcSeconds) {
+        OffsetSpan current = span;
+        if (utcSeconds < current.start || utcSeconds >= current.end) {
+            current = spanOf(utcSeconds);
+            span = current;
+        }
+        return utcSeconds + current.offset;
+    }
+
+    /**
+     * Converts a wall time of the system default timezone to UTC, both as epoch seconds read as UTC. A wall time
+     * skipped by a transition is moved forward by its length, and one repeated by a transition takes the earlier
+     * offset, as with ZonedDateTime.
+     */
+    private static long utcSecondsOf(long localSeconds) {
+        OffsetSpan current = span;
+        long utcSeconds = localSeconds - current.offset;
+        if (utcSeconds - MAX_OFFSET_CHANGE >= current.start && utcSeconds + MAX_OFFSET_CHANGE < current.end) {
+            return utcSeconds;
+        }
+        utcSeconds = LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC).atZone(zone).toEpochSecond();
+        span = spanOf(utcSeconds);
+        return utcSeconds;
+    }
+
+    /**
+     * Looks up the offset in effect at a UTC time and the transitions around it.
+     */
+    private static OffsetSpan spanOf(long utcSeconds) {
+        Instant instant = Instant.ofEpochSecond(utcSeconds);
+        // A transition exactly at the time starts its span, so look for the last one up to and including it
+        ZoneOffsetTransition previous = utcSeconds < Long.MAX_VALUE
+                ? rules.previousTransition(Instant.ofEpochSecond(utcSeconds + 1)) : null;
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        return new OffsetSpan(previous != null ? previous.toEpochSecond() : Long.MIN_VALUE,
+                next != null ? next.toEpochSecond() : Long.MAX_VALUE,
+                rules.getOffset(instant).getTotalSeconds());
+    }
+
+    /**
+     * A span of UTC times between two transitions of the timezone, and the offset in effect during it.
+     */
+    private static class OffsetSpan {
+        private final long start;
+        private final long end;
+        private final int offset;
 
-        ZoneId utcZone = ZoneId.of("UTC");
-        ZonedDateTime utcZonedDateTime = utcDateTime.atZone(utcZone);
-        ZonedDateTime systemDefaultDateTime = utcZonedDateTime.withZoneSameInstant(ZoneId.systemDefault());
-        return systemDefaultDateTime.toLocalDateTime();
+        private OffsetSpan(long start, long end, int offset) {
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+        }
     }
 }
 
@@ -0,0 +1,176 @@
+package helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The TimingWheel class keeps tasks that are due at a given time and hands them out when the clock reaches that time.
+ * It is a hierarchical timing wheel: time is cut into ticks, and four wheels of 64 slots each cover 64 ticks,
+ * 64 groups of 64 ticks, and so on. A task goes into the slot of the coarsest time it needs, and is moved down to a
+ * finer wheel when the clock gets close, so scheduling, cancelling and advancing one tick take constant time no matter
+ * how many tasks are waiting. Tasks further away than the four wheels reach wait in an overflow list.
+ *
+ * The class is not thread-safe; callers share one wheel under their own lock.
+ *
+ * @param <T> The type of the scheduled tasks.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final List<List<Timer<T>>> slots = new ArrayList<>();
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size = 0;
+
+    /**
+     * Creates a wheel whose clock starts at a given time.
+     *
+     * @param tickMillis The length of one tick in milliseconds, which is the precision of the wheel.
+     * @param nowMillis  The current time in epoch milliseconds.
+     */
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules a task. A task that is already due is handed out on the next tick.
+     *
+     * @param dueMillis The time the task is due, in epoch milliseconds.
+     * @param task      The task.
+     * @return The timer of the task, which can be used to cancel it.
+     */
+    public Timer<T> schedule(long dueMillis, T task) {
+        Timer<T> timer = new Timer<>(Math.max(dueMillis / tickMillis, currentTick + 1), task);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a task, so it is not handed out. Cancelled timers are dropped from their slot when the wheel reaches it.
+     *
+     * @param timer The timer returned by {@link #schedule(long, Object)}.
+     * @return True if the task was still waiting.
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.done) {
+            return false;
+        }
+        timer.done = true;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the clock forward and hands out every task that has become due, in order of due time.
+     *
+     * @param nowMillis The current time in epoch milliseconds.
+     * @param due       The action to run for each due task.
+     */
+    public void advanceTo(long nowMillis, Consumer<T> due) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            List<Timer<T>> slot = slots.get((int) (currentTick & (SLOTS - 1)));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<Timer<T>> timers = new ArrayList<>(slot);
+            slot.clear();
+            for (Timer<T> timer : timers) {
+                if (!timer.done) {
+                    timer.done = true;
+                    size--;
+                    due.accept(timer.task);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks still waiting.
+     *
+     * @return The task count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Moves the timers of the coarser wheels whose time has come down to finer wheels, from the coarsest down,
+     * so a timer due on this very tick reaches the first wheel before it is read.
+     */
+    private void cascade() {
+        if ((currentTick & ((1L << (BITS * (LEVELS - 1))) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Timer<T>> waiting = new ArrayList<>(overflow);
+            overflow.clear();
+            waiting.forEach(this::place);
+        }
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                continue;
+            }
+            List<Timer<T>> slot = slots.get(level * SLOTS + (int) ((currentTick >> (BITS * level)) & (SLOTS - 1)));
+            if (!slot.isEmpty()) {
+                List<Timer<T>> timers = new ArrayList<>(slot);
+                slot.clear();
+                timers.forEach(this::place);
+            }
+        }
+    }
+
+    /**
+     * Puts a timer into the finest wheel whose range reaches its due tick. At that wheel the due tick and the current
+     * tick differ by fewer than 64 slots, so the timer never lands in the slot the clock has just passed.
+     */
+    private void place(Timer<T> timer) {
+        if (timer.done) {
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = BITS * level;
+            if ((timer.dueTick >> shift) - (currentTick >> shift) < SLOTS) {
+                slots.get(level * SLOTS + (int) ((timer.dueTick >> shift) & (SLOTS - 1))).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    /**
+     * A scheduled task.
+     *
+     * @param <T> The type of the task.
+     */
+    public static class Timer<T> {
+        private final long dueTick;
+        private final T task;
+        private boolean done = false;
+
+        private Timer(long dueTick, T task) {
+            this.dueTick = dueTick;
+            this.task = task;
+        }
+
+        /**
+         * Gets the task.
+         *
+         * @return The task.
+         */
+        public T getTask() {
+            return task;
+        }
+    }
+}
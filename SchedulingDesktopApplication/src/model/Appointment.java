@@ -1,11 +1,21 @@
 package model;
 
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
 import java.time.LocalDateTime;
 import java.util.Objects;
 
 /**
  * The Appointment class represents an appointment entity.
  * It contains attributes and methods for managing appointment information.
+ *
+ * The start and end are the user's local wall time, the frame the appointment forms save in, and are stored in the
+ * database as they are. Every query, index, report and reminder reads them in that frame, without time zone conversion.
  * @author Elham Pazhakh
  * JAVADOCS FOLDER LOCATION: in this project under the src folder.
  */
@@ -24,6 +34,17 @@ public class Appointment {
    private int customerId;
    private int userId;
    private int contactId;
+   // The properties the tables bind to, created on first use; until then the values are kept in the fields above
+   private IntegerProperty idProperty;
+   private StringProperty titleProperty;
+   private StringProperty descriptionProperty;
+   private StringProperty locationProperty;
+   private StringProperty typeProperty;
+   private ObjectProperty<LocalDateTime> startProperty;
+   private ObjectProperty<LocalDateTime> endProperty;
+   private IntegerProperty customerIdProperty;
+   private IntegerProperty userIdProperty;
+   private IntegerProperty contactIdProperty;
 
     /**
      * Constructs a new Appointment object with the specified attributes.
@@ -60,13 +81,32 @@ public class Appointment {
         this.contactId = contactId;
     }
 
+    /**
+     * Constructs a new Appointment object with the same attributes as another one, for example to get an editable
+     * copy of a read-only view.
+     *
+     * @param other The appointment to copy.
+     */
+    public Appointment(Appointment other) {
+        this(other.getId(), other.getTitle(), other.getDescription(), other.getLocation(), other.getType(),
+                other.getStart(), other.getEnd(), other.getCreatedDate(), other.getCreatedBy(), other.getLastUpdated(),
+                other.getLastUpdatedBy(), other.getCustomerId(), other.getUserId(), other.getContactId());
+    }
+
+    /**
+     * Constructs an empty Appointment for subclasses that supply their own attribute values, such as the read-only
+     * views of an AppointmentStore.
+     */
+    protected Appointment() {
+    }
+
     /**
      * Gets the unique identifier of the appointment.
      *
      * @return The appointment's unique identifier.
      */
     public int getId() {
-        return id;
+        return idProperty == null ? id : idProperty.get();
     }
 
     /**
@@ -75,7 +115,23 @@ public class Appointment {
      * @param id The appointment's unique identifier to set.
      */
     public void setId(int id) {
-        this.id = id;
+        if (idProperty == null) {
+            this.id = id;
+        } else {
+            idProperty.set(id);
+        }
+    }
+
+    /**
+     * Gets the unique identifier of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public IntegerProperty idProperty() {
+        if (idProperty == null) {
+            idProperty = new SimpleIntegerProperty(this, "id", getId());
+        }
+        return idProperty;
     }
 
     /**
@@ -84,7 +140,7 @@ public class Appointment {
      * @return The appointment's title.
      */
     public String getTitle() {
-        return title;
+        return titleProperty == null ? title : titleProperty.get();
     }
 
     /**
@@ -93,7 +149,23 @@ public class Appointment {
      * @param title The appointment's title to set.
      */
     public void setTitle(String title) {
-        this.title = title;
+        if (titleProperty == null) {
+            this.title = title;
+        } else {
+            titleProperty.set(title);
+        }
+    }
+
+    /**
+     * Gets the title of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty titleProperty() {
+        if (titleProperty == null) {
+            titleProperty = new SimpleStringProperty(this, "title", getTitle());
+        }
+        return titleProperty;
     }
 
     /**
@@ -102,7 +174,7 @@ public class Appointment {
      * @return The appointment's description.
      */
     public String getDescription() {
-        return description;
+        return descriptionProperty == null ? description : descriptionProperty.get();
     }
 
     /**
@@ -111,7 +183,23 @@ public class Appointment {
      * @param description The appointment's description to set.
      */
     public void setDescription(String description) {
-        this.description = description;
+        if (descriptionProperty == null) {
+            this.description = description;
+        } else {
+            descriptionProperty.set(description);
+        }
+    }
+
+    /**
+     * Gets the description of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty descriptionProperty() {
+        if (descriptionProperty == null) {
+            descriptionProperty = new SimpleStringProperty(this, "description", getDescription());
+        }
+        return descriptionProperty;
     }
 
     /**
@@ -120,7 +208,7 @@ public class Appointment {
      * @return The appointment's location.
      */
     public String getLocation() {
-        return location;
+        return locationProperty == null ? location : locationProperty.get();
     }
 
     /**
@@ -129,7 +217,23 @@ public class Appointment {
      * @param location The appointment's location to set.
      */
     public void setLocation(String location) {
-        this.location = location;
+        if (locationProperty == null) {
+            this.location = location;
+        } else {
+            locationProperty.set(location);
+        }
+    }
+
+    /**
+     * Gets the location of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty locationProperty() {
+        if (locationProperty == null) {
+            locationProperty = new SimpleStringProperty(this, "location", getLocation());
+        }
+        return locationProperty;
     }
 
     /**
@@ -138,7 +242,7 @@ public class Appointment {
      * @return The appointment's type.
      */
     public String getType() {
-        return type;
+        return typeProperty == null ? type : typeProperty.get();
     }
 
     /**
@@ -147,7 +251,23 @@ public class Appointment {
      * @param type The appointment's type to set.
      */
     public void setType(String type) {
-        this.type = type;
+        if (typeProperty == null) {
+            this.type = type;
+        } else {
+            typeProperty.set(type);
+        }
+    }
+
+    /**
+     * Gets the type of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty typeProperty() {
+        if (typeProperty == null) {
+            typeProperty = new SimpleStringProperty(this, "type", getType());
+        }
+        return typeProperty;
     }
 
     /**
@@ -156,7 +276,7 @@ public class Appointment {
      * @return The start date and time of the appointment.
      */
     public LocalDateTime getStart() {
-        return start;
+        return startProperty == null ? start : startProperty.get();
     }
 
     /**
@@ -165,7 +285,23 @@ public class Appointment {
      * @param start The start date and time of the appointment to set.
      */
     public void setStart(LocalDateTime start) {
-        this.start = start;
+        if (startProperty == null) {
+            this.start = start;
+        } else {
+            startProperty.set(start);
+        }
+    }
+
+    /**
+     * Gets the start date and time of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public ObjectProperty<LocalDateTime> startProperty() {
+        if (startProperty == null) {
+            startProperty = new SimpleObjectProperty<>(this, "start", getStart());
+        }
+        return startProperty;
     }
 
     /**
@@ -174,7 +310,7 @@ public class Appointment {
      * @return The end date and time of the appointment.
      */
     public LocalDateTime getEnd() {
-        return end;
+        return endProperty == null ? end : endProperty.get();
     }
 
     /**
@@ -183,7 +319,23 @@ public class Appointment {
      * @param end The end date and time of the appointment to set.
      */
     public void setEnd(LocalDateTime end) {
-        this.end = end;
+        if (endProperty == null) {
+            this.end = end;
+        } else {
+            endProperty.set(end);
+        }
+    }
+
+    /**
+     * Gets the end date and time of the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public ObjectProperty<LocalDateTime> endProperty() {
+        if (endProperty == null) {
+            endProperty = new SimpleObjectProperty<>(this, "end", getEnd());
+        }
+        return endProperty;
     }
 
     /**
@@ -264,7 +416,7 @@ public class Appointment {
      * @return The customer's unique identifier.
      */
     public int getCustomerId() {
-        return customerId;
+        return customerIdProperty == null ? customerId : customerIdProperty.get();
     }
 
     /**
@@ -273,7 +425,23 @@ public class Appointment {
      * @param customerId The unique identifier of the customer to set.
      */
     public void setCustomerId(int customerId) {
-        this.customerId = customerId;
+        if (customerIdProperty == null) {
+            this.customerId = customerId;
+        } else {
+            customerIdProperty.set(customerId);
+        }
+    }
+
+    /**
+     * Gets the unique identifier of the customer associated with the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public IntegerProperty customerIdProperty() {
+        if (customerIdProperty == null) {
+            customerIdProperty = new SimpleIntegerProperty(this, "customerId", getCustomerId());
+        }
+        return customerIdProperty;
     }
 
     /**
@@ -282,7 +450,7 @@ public class Appointment {
      * @return The user's unique identifier.
      */
     public int getUserId() {
-        return userId;
+        return userIdProperty == null ? userId : userIdProperty.get();
     }
 
     /**
@@ -291,7 +459,23 @@ public class Appointment {
      * @param userId The unique identifier of the user to set.
      */
     public void setUserId(int userId) {
-        this.userId = userId;
+        if (userIdProperty == null) {
+            this.userId = userId;
+        } else {
+            userIdProperty.set(userId);
+        }
+    }
+
+    /**
+     * Gets the unique identifier of the user associated with the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public IntegerProperty userIdProperty() {
+        if (userIdProperty == null) {
+            userIdProperty = new SimpleIntegerProperty(this, "userId", getUserId());
+        }
+        return userIdProperty;
     }
 
     /**
@@ -300,7 +484,7 @@ public class Appointment {
      * @return The contact's unique identifier.
      */
     public int getContactId() {
-        return contactId;
+        return contactIdProperty == null ? contactId : contactIdProperty.get();
     }
 
     /**
@@ -309,20 +493,45 @@ public class Appointment {
      * @param contactId The unique identifier of the contact to set.
      */
     public void setContactId(int contactId) {
-        this.contactId = contactId;
+        if (contactIdProperty == null) {
+            this.contactId = contactId;
+        } else {
+            contactIdProperty.set(contactId);
+        }
+    }
+
+    /**
+     * Gets the unique identifier of the contact associated with the appointment as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public IntegerProperty contactIdProperty() {
+        if (contactIdProperty == null) {
+            contactIdProperty = new SimpleIntegerProperty(this, "contactId", getContactId());
+        }
+        return contactIdProperty;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Appointment)) return false;
         Appointment appointment = (Appointment) o;
-        return id == appointment.id; // Use a unique identifier for comparison (e.g., the appointment ID).
+        return getId() == appointment.getId(); // Use a unique identifier for comparison, so a read-only view equals its copy.
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id); // Use the same unique identifier for the hash code.
+        return Objects.hash(getId()); // Use the same unique identifier for the hash code.
+    }
+
+    /**
+     * Checks whether the appointment is a read-only view, whose setters throw UnsupportedOperationException.
+     *
+     * @return False for an ordinary appointment.
+     */
+    public boolean isReadOnly() {
+        return false;
     }
 
     /**
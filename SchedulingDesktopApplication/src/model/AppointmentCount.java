@@ -0,0 +1,88 @@
+package model;
+
+/**
+ * The AppointmentCount class represents one row of an appointment report: the number of appointments
+ * of one type in one month, optionally for a single contact.
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class AppointmentCount {
+
+    private final int year;
+    private final int month;
+    private final String type;
+    private final int contactId;
+    private final long count;
+
+    /**
+     * Constructs a new AppointmentCount object with the specified attributes.
+     *
+     * @param year      The year of the counted appointments.
+     * @param month     The month of the counted appointments, from 1 to 12.
+     * @param type      The type of the counted appointments.
+     * @param contactId The contact of the counted appointments, or -1 if the count covers every contact.
+     * @param count     The number of appointments.
+     */
+    public AppointmentCount(int year, int month, String type, int contactId, long count) {
+        this.year = year;
+        this.month = month;
+        this.type = type;
+        this.contactId = contactId;
+        this.count = count;
+    }
+
+    /**
+     * Gets the year of the counted appointments.
+     *
+     * @return The year.
+     */
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * Gets the month of the counted appointments.
+     *
+     * @return The month, from 1 to 12.
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    /**
+     * Gets the type of the counted appointments.
+     *
+     * @return The appointment type.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the contact of the counted appointments.
+     *
+     * @return The contact's unique identifier, or -1 if the count covers every contact.
+     */
+    public int getContactId() {
+        return contactId;
+    }
+
+    /**
+     * Gets the number of appointments.
+     *
+     * @return The appointment count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets a string representation of the count.
+     *
+     * @return The year, month, type and count as a string.
+     */
+    @Override
+    public String toString(){
+        return year + "-" + month + " " + type + ": " + count;
+    }
+}
@@ -0,0 +1,468 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The AppointmentStore class holds many appointments in columns instead of one object per appointment.
+ * IDs and foreign keys are int arrays, times are long arrays of epoch seconds, and the type, location and user name
+ * columns are int codes into a dictionary shared by the whole store, so a repeated value is kept only once. Titles
+ * and descriptions are nearly all different, so they are plain String arrays.
+ * A row costs about 80 bytes plus its text, against several hundred for an Appointment object.
+ *
+ * Rows are appended. Removing a row marks it as deleted; a changed appointment is appended as a new row. Once more
+ * rows are deleted than live, {@link #needsCompaction()} is true and {@link #compact(int[])} copies the live rows
+ * into a new store, leaving this one, and the views already handed out, unchanged.
+ * Callers see a row through a read-only Appointment view, or as a new Appointment when they need to edit it.
+ * CalendarIndex keeps the appointments of the loaded months in one store; reports and overlap checks query the
+ * database instead.
+ *
+ * Times are converted to and from epoch seconds as if they were UTC, which keeps them exactly as stored.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class AppointmentStore {
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    /**
+     * The fewest deleted rows worth compacting.
+     */
+    public static final int MIN_DELETED_TO_COMPACT = 256;
+
+    private int size = 0;
+    private int deletedCount = 0;
+    private boolean[] deleted = new boolean[16];
+    private int[] ids = new int[16];
+    private int[] customerIds = new int[16];
+    private int[] userIds = new int[16];
+    private int[] contactIds = new int[16];
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private long[] createdDates = new long[16];
+    private long[] lastUpdates = new long[16];
+    private String[] titles = new String[16];
+    private String[] descriptions = new String[16];
+    private int[] locations = new int[16];
+    private int[] types = new int[16];
+    private int[] createdBys = new int[16];
+    private int[] lastUpdatedBys = new int[16];
+
+    private String[] dictionary = new String[16];
+    private int dictionarySize = 0;
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Appends a row with the values of an appointment. The appointment itself is not kept.
+     *
+     * @param appointment The appointment to copy.
+     * @return The number of the new row.
+     */
+    public int add(Appointment appointment) {
+        return add(appointment.getId(), appointment.getTitle(), appointment.getDescription(), appointment.getLocation(),
+                appointment.getType(), toSeconds(appointment.getStart()), toSeconds(appointment.getEnd()),
+                toSeconds(appointment.getCreatedDate()), appointment.getCreatedBy(),
+                toSeconds(appointment.getLastUpdated()), appointment.getLastUpdatedBy(),
+                appointment.getCustomerId(), appointment.getUserId(), appointment.getContactId());
+    }
+
+    /**
+     * Appends a row. Used by loaders that read the values straight from the database without building an Appointment.
+     * Missing times are given as Long.MIN_VALUE.
+     *
+     * @return The number of the new row.
+     */
+    public int add(int id, String title, String description, String location, String type, long start, long end,
+                   long createdDate, String createdBy, long lastUpdated, String lastUpdatedBy,
+                   int customerId, int userId, int contactId) {
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = id;
+        titles[row] = title;
+        descriptions[row] = description;
+        locations[row] = encode(location);
+        types[row] = encode(type);
+        starts[row] = start;
+        ends[row] = end;
+        createdDates[row] = createdDate;
+        createdBys[row] = encode(createdBy);
+        lastUpdates[row] = lastUpdated;
+        lastUpdatedBys[row] = encode(lastUpdatedBy);
+        customerIds[row] = customerId;
+        userIds[row] = userId;
+        contactIds[row] = contactId;
+        return row;
+    }
+
+    /**
+     * Marks a row as deleted. Its number is not reused.
+     *
+     * @param row The row number.
+     */
+    public void remove(int row) {
+        if (!deleted[row]) {
+            deleted[row] = true;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * Checks whether enough rows have been removed for {@link #compact(int[])} to be worth it: more than
+     * {@link #MIN_DELETED_TO_COMPACT}, and more than are live.
+     *
+     * @return True if the store should be compacted.
+     */
+    public boolean needsCompaction() {
+        return deletedCount >= MIN_DELETED_TO_COMPACT && deletedCount > liveCount();
+    }
+
+    /**
+     * Copies the live rows, in order, into a new store. This store is not changed, so views of its rows stay valid.
+     *
+     * @param newRows Filled with the new number of each row of this store, or -1 for a deleted row; at least
+     *                {@link #size()} long.
+     * @return The new store.
+     */
+    public AppointmentStore compact(int[] newRows) {
+        AppointmentStore compacted = new AppointmentStore();
+        for (int row = 0; row < size; row++) {
+            newRows[row] = deleted[row] ? -1 : compacted.add(ids[row], titles[row], descriptions[row],
+                    decode(locations[row]), decode(types[row]), starts[row], ends[row], createdDates[row],
+                    decode(createdBys[row]), lastUpdates[row], decode(lastUpdatedBys[row]),
+                    customerIds[row], userIds[row], contactIds[row]);
+        }
+        return compacted;
+    }
+
+    /**
+     * Checks whether a row has been removed.
+     *
+     * @param row The row number.
+     * @return True if the row is deleted.
+     */
+    public boolean isDeleted(int row) {
+        return deleted[row];
+    }
+
+    /**
+     * Returns the number of rows, including deleted ones.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of rows that have not been removed.
+     *
+     * @return The live row count.
+     */
+    public int liveCount() {
+        return size - deletedCount;
+    }
+
+    /**
+     * Gets the appointment ID of a row.
+     *
+     * @param row The row number.
+     * @return The appointment ID.
+     */
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Gets the customer ID of a row.
+     *
+     * @param row The row number.
+     * @return The customer ID.
+     */
+    public int getCustomerId(int row) {
+        return customerIds[row];
+    }
+
+    /**
+     * Gets the start of a row in epoch seconds.
+     *
+     * @param row The row number.
+     * @return The start in epoch seconds.
+     */
+    public long getStartSeconds(int row) {
+        return starts[row];
+    }
+
+    /**
+     * Gets the end of a row in epoch seconds.
+     *
+     * @param row The row number.
+     * @return The end in epoch seconds.
+     */
+    public long getEndSeconds(int row) {
+        return ends[row];
+    }
+
+    /**
+     * Returns a read-only Appointment that reads its values from a row. Its setters throw
+     * UnsupportedOperationException; use {@link #toAppointment(int)} to get an editable copy.
+     *
+     * @param row The row number.
+     * @return The view of the row.
+     */
+    public Appointment view(int row) {
+        return new View(row);
+    }
+
+    /**
+     * Builds a new, editable Appointment with the values of a row.
+     *
+     * @param row The row number.
+     * @return The appointment.
+     */
+    public Appointment toAppointment(int row) {
+        return new Appointment(ids[row], titles[row], descriptions[row], decode(locations[row]),
+                decode(types[row]), toDateTime(starts[row]), toDateTime(ends[row]), toDateTime(createdDates[row]),
+                decode(createdBys[row]), toDateTime(lastUpdates[row]), decode(lastUpdatedBys[row]),
+                customerIds[row], userIds[row], contactIds[row]);
+    }
+
+    /**
+     * Estimates the heap used by the store's arrays, distinct strings, titles and descriptions.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long estimateBytes() {
+        long bytes = (long) ids.length * (1 + 10 * 4 + 4 * 8) + (long) dictionary.length * 4;
+        for (int i = 0; i < dictionarySize; i++) {
+            bytes += 40 + 2L * dictionary[i].length();
+        }
+        for (int row = 0; row < size; row++) {
+            bytes += textBytes(titles[row]) + textBytes(descriptions[row]);
+        }
+        return bytes;
+    }
+
+    /**
+     * Converts a date and time to epoch seconds, treating it as UTC.
+     *
+     * @param dateTime The date and time, or null.
+     * @return The epoch seconds, or Long.MIN_VALUE for null.
+     */
+    public static long toSeconds(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+    }
+
+    /**
+     * Converts epoch seconds back to a date and time, treating them as UTC.
+     *
+     * @param seconds The epoch seconds, or Long.MIN_VALUE.
+     * @return The date and time, or null for Long.MIN_VALUE.
+     */
+    public static LocalDateTime toDateTime(long seconds) {
+        return seconds != NO_TIME ? LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC) : null;
+    }
+
+    private int encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+            }
+            code = dictionarySize++;
+            dictionary[code] = value;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    private static long textBytes(String value) {
+        return value != null ? 40 + 2L * value.length() : 0;
+    }
+
+    private String decode(int code) {
+        return code >= 0 ? dictionary[code] : null;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        deleted = Arrays.copyOf(deleted, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        customerIds = Arrays.copyOf(customerIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        contactIds = Arrays.copyOf(contactIds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        createdDates = Arrays.copyOf(createdDates, capacity);
+        lastUpdates = Arrays.copyOf(lastUpdates, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        types = Arrays.copyOf(types, capacity);
+        createdBys = Arrays.copyOf(createdBys, capacity);
+        lastUpdatedBys = Arrays.copyOf(lastUpdatedBys, capacity);
+    }
+
+    /**
+     * A read-only Appointment backed by one row of the store.
+     */
+    private class View extends Appointment {
+        private final int row;
+
+        private View(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int getId() {
+            return ids[row];
+        }
+
+        @Override
+        public String getTitle() {
+            return titles[row];
+        }
+
+        @Override
+        public String getDescription() {
+            return descriptions[row];
+        }
+
+        @Override
+        public String getLocation() {
+            return decode(locations[row]);
+        }
+
+        @Override
+        public String getType() {
+            return decode(types[row]);
+        }
+
+        @Override
+        public LocalDateTime getStart() {
+            return toDateTime(starts[row]);
+        }
+
+        @Override
+        public LocalDateTime getEnd() {
+            return toDateTime(ends[row]);
+        }
+
+        @Override
+        public LocalDateTime getCreatedDate() {
+            return toDateTime(createdDates[row]);
+        }
+
+        @Override
+        public String getCreatedBy() {
+            return decode(createdBys[row]);
+        }
+
+        @Override
+        public LocalDateTime getLastUpdated() {
+            return toDateTime(lastUpdates[row]);
+        }
+
+        @Override
+        public String getLastUpdatedBy() {
+            return decode(lastUpdatedBys[row]);
+        }
+
+        @Override
+        public int getCustomerId() {
+            return customerIds[row];
+        }
+
+        @Override
+        public int getUserId() {
+            return userIds[row];
+        }
+
+        @Override
+        public int getContactId() {
+            return contactIds[row];
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+
+        @Override
+        public void setId(int id) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setTitle(String title) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setDescription(String description) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setLocation(String location) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setType(String type) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setStart(LocalDateTime start) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setEnd(LocalDateTime end) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setCreatedDate(LocalDateTime createdDate) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setCreatedBy(String createdBy) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setLastUpdated(LocalDateTime lastUpdated) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setLastUpdatedBy(String lastUpdatedBy) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setCustomerId(int customerId) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setUserId(int userId) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+
+        @Override
+        public void setContactId(int contactId) {
+            throw new UnsupportedOperationException("Appointment view is read-only.");
+        }
+    }
+}
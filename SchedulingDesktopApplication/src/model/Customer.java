@@ -1,5 +1,10 @@
 package model;
 
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
 import java.time.LocalDateTime;
 
 /**
@@ -20,6 +25,13 @@ public class Customer {
     private LocalDateTime lastUpdate;
     private String lastUpdatedBy;
     private int divisionId;
+    // The properties the tables bind to, created on first use; until then the values are kept in the fields above
+    private IntegerProperty customerIdProperty;
+    private StringProperty customerNameProperty;
+    private StringProperty addressProperty;
+    private StringProperty postalCodeProperty;
+    private StringProperty phoneProperty;
+    private IntegerProperty divisionIdProperty;
 
 
     /**
@@ -49,6 +61,18 @@ public class Customer {
         this.divisionId = divisionId;
     }
 
+    /**
+     * Constructs a new Customer object with the same attributes as another one, for example so a form can edit
+     * a copy of a row that is shown elsewhere.
+     *
+     * @param other The customer to copy.
+     */
+    public Customer(Customer other) {
+        this(other.getCustomerId(), other.getCustomerName(), other.getAddress(), other.getPostalCode(), other.getPhone(),
+                other.getCreatedDate(), other.getCreatedBy(), other.getLastUpdate(), other.getLastUpdatedBy(),
+                other.getDivisionId());
+    }
+
     /**
      * Gets the date and time when the customer was created.
      *
@@ -127,7 +151,7 @@ public class Customer {
      * @return The division ID.
      */
     public int getDivisionId() {
-        return divisionId;
+        return divisionIdProperty == null ? divisionId : divisionIdProperty.get();
     }
 
     /**
@@ -136,7 +160,23 @@ public class Customer {
      * @param divisionId The division ID to set.
      */
     public void setDivisionId(int divisionId) {
-        this.divisionId = divisionId;
+        if (divisionIdProperty == null) {
+            this.divisionId = divisionId;
+        } else {
+            divisionIdProperty.set(divisionId);
+        }
+    }
+
+    /**
+     * Gets the division ID associated with the customer as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public IntegerProperty divisionIdProperty() {
+        if (divisionIdProperty == null) {
+            divisionIdProperty = new SimpleIntegerProperty(this, "divisionId", getDivisionId());
+        }
+        return divisionIdProperty;
     }
 
     /**
@@ -145,7 +185,7 @@ public class Customer {
      * @return The customer's ID.
      */
     public int getCustomerId() {
-        return customerId;
+        return customerIdProperty == null ? customerId : customerIdProperty.get();
     }
 
     /**
@@ -154,7 +194,23 @@ public class Customer {
      * @param customerId The customer's ID to set.
      */
     public void setCustomerId(int customerId) {
-        this.customerId = customerId;
+        if (customerIdProperty == null) {
+            this.customerId = customerId;
+        } else {
+            customerIdProperty.set(customerId);
+        }
+    }
+
+    /**
+     * Gets the unique identifier of the customer as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public IntegerProperty customerIdProperty() {
+        if (customerIdProperty == null) {
+            customerIdProperty = new SimpleIntegerProperty(this, "customerId", getCustomerId());
+        }
+        return customerIdProperty;
     }
 
     /**
@@ -163,7 +219,7 @@ public class Customer {
      * @return The customer's name.
      */
     public String getCustomerName() {
-        return customerName;
+        return customerNameProperty == null ? customerName : customerNameProperty.get();
     }
 
     /**
@@ -172,7 +228,23 @@ public class Customer {
      * @param customerName The customer's name to set.
      */
     public void setCustomerName(String customerName) {
-        this.customerName = customerName;
+        if (customerNameProperty == null) {
+            this.customerName = customerName;
+        } else {
+            customerNameProperty.set(customerName);
+        }
+    }
+
+    /**
+     * Gets the name of the customer as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty customerNameProperty() {
+        if (customerNameProperty == null) {
+            customerNameProperty = new SimpleStringProperty(this, "customerName", getCustomerName());
+        }
+        return customerNameProperty;
     }
 
     /**
@@ -181,7 +253,7 @@ public class Customer {
      * @return The customer's address.
      */
     public String getAddress() {
-        return address;
+        return addressProperty == null ? address : addressProperty.get();
     }
 
     /**
@@ -190,7 +262,23 @@ public class Customer {
      * @param address The customer's address to set.
      */
     public void setAddress(String address) {
-        this.address = address;
+        if (addressProperty == null) {
+            this.address = address;
+        } else {
+            addressProperty.set(address);
+        }
+    }
+
+    /**
+     * Gets the address of the customer as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty addressProperty() {
+        if (addressProperty == null) {
+            addressProperty = new SimpleStringProperty(this, "address", getAddress());
+        }
+        return addressProperty;
     }
 
     /**
@@ -199,7 +287,7 @@ public class Customer {
      * @return The postal code.
      */
     public String getPostalCode() {
-        return postalCode;
+        return postalCodeProperty == null ? postalCode : postalCodeProperty.get();
     }
 
     /**
@@ -208,7 +296,23 @@ public class Customer {
      * @param postalCode The postal code to set.
      */
     public void setPostalCode(String postalCode) {
-        this.postalCode = postalCode;
+        if (postalCodeProperty == null) {
+            this.postalCode = postalCode;
+        } else {
+            postalCodeProperty.set(postalCode);
+        }
+    }
+
+    /**
+     * Gets the postal code of the customer's location as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty postalCodeProperty() {
+        if (postalCodeProperty == null) {
+            postalCodeProperty = new SimpleStringProperty(this, "postalCode", getPostalCode());
+        }
+        return postalCodeProperty;
     }
 
     /**
@@ -217,7 +321,7 @@ public class Customer {
      * @return The customer's phone number.
      */
     public String getPhone() {
-        return phone;
+        return phoneProperty == null ? phone : phoneProperty.get();
     }
 
     /**
@@ -226,7 +330,23 @@ public class Customer {
      * @param phone The customer's phone number to set.
      */
     public void setPhone(String phone) {
-        this.phone = phone;
+        if (phoneProperty == null) {
+            this.phone = phone;
+        } else {
+            phoneProperty.set(phone);
+        }
+    }
+
+    /**
+     * Gets the phone number of the customer as a property, for binding a table column. It is created on first use.
+     *
+     * @return The property.
+     */
+    public StringProperty phoneProperty() {
+        if (phoneProperty == null) {
+            phoneProperty = new SimpleStringProperty(this, "phone", getPhone());
+        }
+        return phoneProperty;
     }
 
     /**
@@ -0,0 +1,33 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * The Occurrence class represents one later occurrence of a recurring appointment, worked out from its rule.
+ * It has the ID and details of the stored appointment and its own start and end. It is read-only: editing it
+ * edits the whole series, and deleting it adds an exception to the series.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class Occurrence extends Appointment {
+
+    /**
+     * Constructs a new Occurrence of a recurring appointment.
+     *
+     * @param series The stored appointment that holds the first occurrence.
+     * @param start  The start of this occurrence.
+     */
+    public Occurrence(Appointment series, LocalDateTime start) {
+        super(series.getId(), series.getTitle(), series.getDescription(), series.getLocation(), series.getType(),
+                start, start.plus(Duration.between(series.getStart(), series.getEnd())), series.getCreatedDate(),
+                series.getCreatedBy(), series.getLastUpdated(), series.getLastUpdatedBy(),
+                series.getCustomerId(), series.getUserId(), series.getContactId());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
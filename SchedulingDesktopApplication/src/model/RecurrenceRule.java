@@ -0,0 +1,149 @@
+package model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The RecurrenceRule class describes how an appointment repeats: every given number of days, weeks or months,
+ * optionally until a last date, and except on some dates.
+ *
+ * The appointment row holds the first occurrence; the rule gives the others. They are never stored, only worked out
+ * for the time window being looked at, starting from the first occurrence that can reach into the window,
+ * so a long-running series costs the same as a single appointment.
+ * Monthly occurrences keep the day of the month of the first one, or fall on the last day of shorter months.
+ *
+ * @author Elham Pazhakh
+ * JAVADOCS FOLDER LOCATION: in this project under the src folder.
+ */
+public class RecurrenceRule {
+
+    /**
+     * How often an appointment repeats.
+     */
+    public enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDate until;
+    private final Set<LocalDate> exceptions;
+
+    /**
+     * Constructs a new RecurrenceRule object with the specified attributes.
+     *
+     * @param frequency  How often the appointment repeats.
+     * @param interval   The number of days, weeks or months between occurrences, at least 1.
+     * @param until      The last date an occurrence may fall on, or null to repeat without end.
+     * @param exceptions The dates on which the appointment does not take place.
+     */
+    public RecurrenceRule(Frequency frequency, int interval, LocalDate until, Set<LocalDate> exceptions) {
+        this.frequency = frequency;
+        this.interval = Math.max(1, interval);
+        this.until = until;
+        this.exceptions = Collections.unmodifiableSet(new TreeSet<>(exceptions));
+    }
+
+    /**
+     * Gets how often the appointment repeats.
+     *
+     * @return The frequency.
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Gets the number of days, weeks or months between occurrences.
+     *
+     * @return The interval.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the last date an occurrence may fall on.
+     *
+     * @return The last date, or null if the appointment repeats without end.
+     */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Gets the dates on which the appointment does not take place.
+     *
+     * @return The exception dates, in order.
+     */
+    public Set<LocalDate> getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Returns a rule that also skips one more date.
+     *
+     * @param date The date to skip.
+     * @return The new rule.
+     */
+    public RecurrenceRule withException(LocalDate date) {
+        Set<LocalDate> dates = new TreeSet<>(exceptions);
+        dates.add(date);
+        return new RecurrenceRule(frequency, interval, until, dates);
+    }
+
+    /**
+     * Works out the start of an occurrence.
+     *
+     * @param firstStart The start of the first occurrence.
+     * @param index      The number of the occurrence, 0 for the first.
+     * @return The start of the occurrence.
+     */
+    public LocalDateTime occurrence(LocalDateTime firstStart, long index) {
+        switch (frequency) {
+            case DAILY: return firstStart.plusDays(index * interval);
+            case WEEKLY: return firstStart.plusWeeks(index * interval);
+            default: return firstStart.plusMonths(index * interval);
+        }
+    }
+
+    /**
+     * Works out the starts of the later occurrences that overlap a time window. The first occurrence is left out,
+     * because it is the stored appointment itself.
+     *
+     * @param firstStart The start of the first occurrence.
+     * @param length     The length of each occurrence.
+     * @param from       The inclusive start of the window.
+     * @param to         The exclusive end of the window.
+     * @return The starts of the occurrences, in order.
+     */
+    public List<LocalDateTime> startsBetween(LocalDateTime firstStart, Duration length, LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        // Skip straight to the first occurrence that could still be running at the start of the window
+        LocalDateTime earliest = from.minus(length);
+        long index = 1;
+        if (earliest.isAfter(firstStart)) {
+            long periods;
+            switch (frequency) {
+                case DAILY: periods = ChronoUnit.DAYS.between(firstStart, earliest); break;
+                case WEEKLY: periods = ChronoUnit.WEEKS.between(firstStart, earliest); break;
+                default: periods = ChronoUnit.MONTHS.between(firstStart, earliest) - 1; break;
+            }
+            index = Math.max(1, periods / interval);
+        }
+        for (; ; index++) {
+            LocalDateTime start = occurrence(firstStart, index);
+            if (!start.isBefore(to) || (until != null && start.toLocalDate().isAfter(until))) {
+                return starts;
+            }
+            if (start.plus(length).isAfter(from) && !exceptions.contains(start.toLocalDate())) {
+                starts.add(start);
+            }
+        }
+    }
+}